@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+#
+# Compares platform threads and virtual threads under the same download/upload load.
+#
+# The application is started twice from the built jar, once per threading mode, and driven with 'hey'
+# (https://github.com/rakyll/hey). Requests per second and the latency percentiles of each run are printed
+# side by side. S3 credentials and the bucket are read from the usual environment variables.
+#
+# Usage: doc/benchmark/virtual-threads.sh <file-key-to-download> [concurrency] [duration]
+#
+set -euo pipefail
+
+FILE_KEY=${1:?"usage: $0 <file-key-to-download> [concurrency] [duration]"}
+CONCURRENCY=${2:-200}
+DURATION=${3:-60s}
+PORT=${PORT:-6060}
+JAR=${JAR:-$(ls target/*.jar | grep -v original | head -1)}
+UPLOAD_FILE=${UPLOAD_FILE:-$(mktemp)}
+BASE_URL="http://localhost:${PORT}/api/storage"
+
+[ -s "$UPLOAD_FILE" ] || head -c 1048576 /dev/urandom > "$UPLOAD_FILE"
+
+run() {
+  local mode=$1 virtual=$2
+  java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" > "/tmp/benchmark-${mode}.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" EXIT
+  until curl -s -o /dev/null "http://localhost:${PORT}/actuator/health"; do sleep 1; done
+
+  echo "== ${mode}: download (${CONCURRENCY} concurrent, ${DURATION})"
+  hey -z "$DURATION" -c "$CONCURRENCY" "${BASE_URL}/files/${FILE_KEY}" | grep -E "Requests/sec|  (50|90|99)% in"
+
+  echo "== ${mode}: upload stream (${CONCURRENCY} concurrent, ${DURATION})"
+  hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T application/octet-stream -H "filename: benchmark.bin" \
+    -D "$UPLOAD_FILE" "${BASE_URL}/files/stream" | grep -E "Requests/sec|  (50|90|99)% in"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run platform false
+run virtual true
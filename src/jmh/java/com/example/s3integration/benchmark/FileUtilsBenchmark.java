@@ -0,0 +1,92 @@
+package com.example.s3integration.benchmark;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.config.properties.StorageConfigProperties.KeyStrategy;
+import com.example.s3integration.metrics.StorageMetrics;
+import com.example.s3integration.util.ContentCompressor;
+import com.example.s3integration.util.FileUtils;
+import com.example.s3integration.util.key.RandomFileKeyGenerator;
+import com.example.s3integration.util.key.ShardedFilePathLayout;
+import com.example.s3integration.util.key.TimeOrderedFileKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the file key and path generation done for every upload with each key strategy, on a single
+ * thread and with all available threads contending for the shared state of the generator.
+ *
+ * The formatter benchmarks isolate the cost of building a {@link DateTimeFormatter} per call from formatting
+ * the date with a shared one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileUtilsBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public KeyStrategy keyStrategy;
+
+    private FileUtils fileUtils;
+    private String fileKey;
+
+    @Setup
+    public void setUp() {
+        fileUtils = new FileUtils(keyStrategy == KeyStrategy.RANDOM ? new RandomFileKeyGenerator() : new TimeOrderedFileKeyGenerator(),
+                new ShardedFilePathLayout(16), new StorageMetrics(new SimpleMeterRegistry()), new ContentCompressor(new StorageConfigProperties()));
+        fileKey = fileUtils.generateFileKey();
+        ReflectionTestUtils.setField(fileUtils, "MAIN_FOLDER", "storage");
+    }
+
+    @Benchmark
+    public String generateFileKey() {
+        return fileUtils.generateFileKey();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateFileKeyContended() {
+        return fileUtils.generateFileKey();
+    }
+
+    @Benchmark
+    public String generateFilePath() {
+        return fileUtils.generateFilePath(fileKey, "report.pdf");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateFilePathContended() {
+        return fileUtils.generateFilePath(fileKey, "report.pdf");
+    }
+
+    @Benchmark
+    public String formatDateWithNewFormatter() {
+        return LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+
+    @Benchmark
+    public String formatDateWithSharedFormatter() {
+        return LocalDate.now().format(DATE_FORMATTER);
+    }
+}
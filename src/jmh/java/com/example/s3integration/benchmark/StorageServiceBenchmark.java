@@ -0,0 +1,145 @@
+package com.example.s3integration.benchmark;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.config.properties.StorageConfigProperties.StreamUploadMode;
+import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
+import com.example.s3integration.service.FileStorageService;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end upload and download through {@link FileStorageService} against a local S3 stand-in.
+ *
+ * Start the MinIO of docker-compose first ({@code docker compose --profile minio up -d minio}); another endpoint
+ * can be passed with {@code -jvmArgs -Dbenchmark.s3.endpoint=...}. The metadata is kept in an in-memory H2
+ * database, and the files uploaded by a run are deleted when it ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageServiceBenchmark {
+
+    // 32MB crosses the default multipart threshold
+    @Param({"1048576", "33554432"})
+    public int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private FileStorageService fileStorageService;
+    private StorageConfigProperties storageConfigProperties;
+    private byte[] content;
+    private FileMetadataResponse downloadedFile;
+    private final Queue<String> uploadedKeys = new ConcurrentLinkedQueue<>();
+
+    @State(Scope.Thread)
+    public static class Upload {
+
+        @Param({"DIRECT", "TEMP_FILE"})
+        public StreamUploadMode mode;
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments, so that they override the values of application.yml
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--aws.s3.endpoint=" + System.getProperty("benchmark.s3.endpoint", "http://localhost:9000"),
+                        "--aws.s3.path-style-access=true",
+                        "--aws.s3.region=us-east-1",
+                        "--aws.s3.access-key=" + System.getProperty("benchmark.s3.access-key", "minioadmin"),
+                        "--aws.s3.secret-key=" + System.getProperty("benchmark.s3.secret-key", "minioadmin"),
+                        "--aws.s3.bucket-name=" + System.getProperty("benchmark.s3.bucket", "benchmark"),
+                        "--spring-boot-s3-example.storage.disk-cache.enabled=false");
+        fileStorageService = context.getBean(FileStorageService.class);
+        storageConfigProperties = context.getBean(StorageConfigProperties.class);
+        createBucket(context.getBean(S3Client.class), context.getEnvironment().getProperty("aws.s3.bucket-name"));
+
+        content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        String key = fileStorageService.uploadFileStream(new InputStreamResource(new ByteArrayInputStream(content)), "benchmark.bin").getFileKey();
+        uploadedKeys.add(key);
+        downloadedFile = fileStorageService.getFileMetadata(key);
+    }
+
+    @TearDown
+    public void tearDown() {
+        List<String> keys = new ArrayList<>(uploadedKeys);
+        for (int from = 0; from < keys.size(); from += 1000) {
+            fileStorageService.deleteFiles(keys.subList(from, Math.min(keys.size(), from + 1000)));
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public String upload(Upload upload) {
+        // The upload mode is read per upload, so switching it on the bound properties takes effect immediately
+        storageConfigProperties.getStreamUpload().setMode(upload.mode);
+        String key = fileStorageService.uploadFileStream(new InputStreamResource(new ByteArrayInputStream(content)), "benchmark.bin").getFileKey();
+        uploadedKeys.add(key);
+        return key;
+    }
+
+    @Benchmark
+    public void download() {
+        fileStorageService.writeFile(downloadedFile, fileSize, NullOutputStream.INSTANCE);
+    }
+
+    private void createBucket(S3Client s3Client, String bucketName) {
+        try {
+            s3Client.headBucket(request -> request.bucket(bucketName));
+        } catch (NoSuchBucketException e) {
+            s3Client.createBucket(request -> request.bucket(bucketName));
+        }
+    }
+
+    // Same setup as the application class, which is shadowed on the test classpath by the test of the same name
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EnableJpaAuditing
+    @AutoConfigurationPackage(basePackages = "com.example.s3integration")
+    @ComponentScan(basePackages = "com.example.s3integration", excludeFilters = {
+            @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+            @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class)})
+    static class BenchmarkApplication {
+    }
+}
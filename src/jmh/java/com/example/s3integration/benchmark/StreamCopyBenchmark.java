@@ -0,0 +1,120 @@
+package com.example.s3integration.benchmark;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.metrics.StorageMetrics;
+import com.example.s3integration.util.ContentCompressor;
+import com.example.s3integration.util.FileUtils;
+import com.example.s3integration.util.key.ShardedFilePathLayout;
+import com.example.s3integration.util.key.TimeOrderedFileKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to spool a request stream to a temporary file, as done by {@link FileUtils#convertInputStreamToFile},
+ * compared with the same copy loop at other buffer sizes and with the copy methods of the JDK.
+ *
+ * Every invocation writes and deletes a fresh temporary file, so the numbers include file creation and deletion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamCopyBenchmark {
+
+    @State(Scope.Thread)
+    public static class Source {
+
+        @Param({"65536", "1048576", "16777216"})
+        public int fileSize;
+
+        public byte[] content;
+        public FileUtils fileUtils;
+
+        @Setup
+        public void setUp() {
+            content = new byte[fileSize];
+            ThreadLocalRandom.current().nextBytes(content);
+            // Compression is disabled by default, so the copy is measured without an encoder
+            fileUtils = new FileUtils(new TimeOrderedFileKeyGenerator(), new ShardedFilePathLayout(16), new StorageMetrics(new SimpleMeterRegistry()),
+                    new ContentCompressor(new StorageConfigProperties()));
+        }
+
+        public InputStream open() {
+            return new ByteArrayInputStream(content);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Buffer {
+
+        @Param({"8192", "65536", "262144"})
+        public int bufferSize;
+    }
+
+    @Benchmark
+    public long fileUtils(Source source) throws IOException {
+        File tempFile = source.fileUtils.convertInputStreamToFile(source.open(), "benchmark.bin");
+        long length = tempFile.length();
+        source.fileUtils.deleteTempFile(tempFile);
+        return length;
+    }
+
+    @Benchmark
+    public long copyLoop(Source source, Buffer buffer) throws IOException {
+        Path tempFile = Files.createTempFile("benchmark-", ".bin");
+        try (InputStream inputStream = source.open(); OutputStream outputStream = Files.newOutputStream(tempFile)) {
+            byte[] bytes = new byte[buffer.bufferSize];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(bytes)) != -1) {
+                outputStream.write(bytes, 0, bytesRead);
+            }
+        }
+        return delete(tempFile);
+    }
+
+    @Benchmark
+    public long transferTo(Source source) throws IOException {
+        Path tempFile = Files.createTempFile("benchmark-", ".bin");
+        try (InputStream inputStream = source.open(); OutputStream outputStream = Files.newOutputStream(tempFile)) {
+            inputStream.transferTo(outputStream);
+        }
+        return delete(tempFile);
+    }
+
+    @Benchmark
+    public long filesCopy(Source source) throws IOException {
+        Path tempFile = Files.createTempFile("benchmark-", ".bin");
+        try (InputStream inputStream = source.open()) {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return delete(tempFile);
+    }
+
+    private long delete(Path tempFile) throws IOException {
+        long length = Files.size(tempFile);
+        Files.delete(tempFile);
+        return length;
+    }
+}
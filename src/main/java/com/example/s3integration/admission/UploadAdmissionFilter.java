@@ -0,0 +1,165 @@
+package com.example.s3integration.admission;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.exception.custom.storage.UploadQueueFullException;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admits requests to the upload endpoints through the {@link UploadAdmissionLimiter} before their body is read,
+ * so that a burst of uploads cannot spool more than the configured bytes to disk or hold more threads than allowed.
+ *
+ * A rejected request is answered like an {@link UploadQueueFullException}, with 503 and a Retry-After header.
+ * The permit is released when the request completes, or when the async request completes. A handler whose work
+ * outlives the request, like an upload job whose spooled content stays on disk, takes the permit over with
+ * {@link #takePermit(HttpServletRequest)} and releases it itself.
+ *
+ * Clients are told apart by the configured client header, which has to be set or verified by a trusted proxy:
+ * a client that can choose its own value gets a fresh set of per-client limits with every value.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "spring-boot-s3-example.storage.upload-admission", name = "enabled", havingValue = "true")
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadAdmissionFilter.class);
+
+    private static final String PERMIT_ATTRIBUTE = UploadAdmissionFilter.class.getName() + ".permit";
+
+    // Endpoints that receive a file body
+    private static final Set<String> UPLOAD_PATHS = Set.of(
+            "/api/storage/files",
+            "/api/storage/files/batch",
+            "/api/storage/files/stream",
+            "/api/storage/upload-jobs",
+            "/api/storage/upload-jobs/stream");
+
+    private final UploadAdmissionLimiter uploadAdmissionLimiter;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final String clientHeader;
+
+    public UploadAdmissionFilter(UploadAdmissionLimiter uploadAdmissionLimiter,
+                                 @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+                                 StorageConfigProperties storageConfigProperties) {
+        this.uploadAdmissionLimiter = uploadAdmissionLimiter;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.clientHeader = storageConfigProperties.getUploadAdmission().getClientHeader();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !UPLOAD_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String clientId = getClientId(request);
+        UploadAdmissionLimiter.Permit permit;
+        try {
+            permit = uploadAdmissionLimiter.tryAcquire(clientId, request.getContentLengthLong());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+        if (permit == null) {
+            logger.warn("Upload from client '{}' rejected by admission control", clientId);
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new UploadQueueFullException("Too many uploads in progress", uploadAdmissionLimiter.getRetryAfter()));
+            return;
+        }
+        PermitHolder permitHolder = new PermitHolder(permit);
+        request.setAttribute(PERMIT_ATTRIBUTE, permitHolder);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitReleasingListener(permitHolder));
+            } else {
+                permitHolder.release();
+            }
+        }
+    }
+
+    /**
+     * Takes over the admission permit of a request, which is then no longer released when the request completes.
+     *
+     * @param request the current request
+     * @return a callback releasing the permit, to be run once the admitted work is finished; it does nothing if the
+     * request holds no permit, e.g. because admission control is disabled
+     */
+    public static Runnable takePermit(HttpServletRequest request) {
+        UploadAdmissionLimiter.Permit permit = request.getAttribute(PERMIT_ATTRIBUTE) instanceof PermitHolder permitHolder ? permitHolder.take() : null;
+        return permit != null ? permit::release : () -> {
+        };
+    }
+
+    private String getClientId(HttpServletRequest request) {
+        String clientId = StringUtils.hasText(clientHeader) ? request.getHeader(clientHeader) : null;
+        return StringUtils.hasText(clientId) ? clientId : request.getRemoteAddr();
+    }
+
+    // The permit of a request until it is released with the request or taken over by its handler
+    private static final class PermitHolder {
+
+        private final AtomicReference<UploadAdmissionLimiter.Permit> permit;
+
+        private PermitHolder(UploadAdmissionLimiter.Permit permit) {
+            this.permit = new AtomicReference<>(permit);
+        }
+
+        private UploadAdmissionLimiter.Permit take() {
+            return permit.getAndSet(null);
+        }
+
+        private void release() {
+            UploadAdmissionLimiter.Permit current = take();
+            if (current != null) {
+                current.release();
+            }
+        }
+    }
+
+    // Releases the permit of an upload that completes after its request thread has returned
+    private record PermitReleasingListener(PermitHolder permitHolder) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permitHolder.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permitHolder.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permitHolder.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle of the same request ends with one of the events above
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
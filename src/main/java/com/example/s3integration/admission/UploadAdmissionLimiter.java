@@ -0,0 +1,203 @@
+package com.example.s3integration.admission;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the uploads running at the same time, in total and per client, by their number and by their bytes.
+ *
+ * An upload that does not fit waits in a bounded queue until enough admitted uploads finish or its deadline
+ * passes. Waiting uploads are not served in order; every release wakes all of them and the first one that fits
+ * is admitted, so a small upload is not held back by a large one in front of it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring-boot-s3-example.storage.upload-admission", name = "enabled", havingValue = "true")
+public class UploadAdmissionLimiter {
+
+    public static final String REJECTED_QUEUE_FULL = "queue_full";
+    public static final String REJECTED_TIMEOUT = "timeout";
+
+    private final StorageConfigProperties.UploadAdmission admission;
+    private final long maxInFlightBytes;
+    private final long maxInFlightBytesPerClient;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // Admitted uploads and bytes per client, guarded by the lock; clients without admitted uploads are removed
+    private final Map<String, Usage> clients = new HashMap<>();
+    private final Usage total = new Usage();
+    private int queuedUploads;
+    private final Timer waitTimer;
+    private final Meter.MeterProvider<Counter> rejectedCounters;
+
+    public UploadAdmissionLimiter(StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) {
+        this.admission = storageConfigProperties.getUploadAdmission();
+        this.maxInFlightBytes = admission.getMaxInFlightBytes().toBytes();
+        this.maxInFlightBytesPerClient = admission.getMaxInFlightBytesPerClient().toBytes();
+        this.waitTimer = Timer.builder("storage.upload.admission.wait")
+                .description("Time uploads waited for admission, including rejected ones")
+                .register(meterRegistry);
+        this.rejectedCounters = Counter.builder("storage.upload.admission.rejected")
+                .description("Uploads rejected because the admission queue was full or their wait timed out")
+                .withRegistry(meterRegistry);
+        Gauge.builder("storage.upload.admission.queued", this, UploadAdmissionLimiter::getQueuedUploads)
+                .description("Uploads waiting for admission").register(meterRegistry);
+        Gauge.builder("storage.upload.admission.admitted", this, UploadAdmissionLimiter::getAdmittedUploads)
+                .description("Uploads admitted and not finished yet").register(meterRegistry);
+        Gauge.builder("storage.upload.admission.admitted.bytes", this, UploadAdmissionLimiter::getAdmittedBytes).baseUnit("bytes")
+                .description("Bytes reserved by admitted uploads").register(meterRegistry);
+    }
+
+    /**
+     * Admits an upload, waiting at most the configured queue time for the limits to allow it.
+     *
+     * @param clientId the client the upload counts against
+     * @param contentLength the size of the upload in bytes, or -1 if it is not known
+     * @return the permit to release once the upload is finished, or null if the upload is rejected
+     * @throws InterruptedException if the thread is interrupted while it waits
+     */
+    public Permit tryAcquire(String clientId, long contentLength) throws InterruptedException {
+        long requestedBytes = contentLength >= 0 ? contentLength : admission.getUnknownContentLength().toBytes();
+        // An upload above a byte limit is admitted once nothing else counts against that limit
+        long bytes = Math.min(requestedBytes, Math.min(maxInFlightBytes, maxInFlightBytesPerClient));
+        long startTime = System.nanoTime();
+        lock.lock();
+        try {
+            if (!fits(clientId, bytes)) {
+                if (queuedUploads >= admission.getMaxQueuedUploads()) {
+                    return reject(REJECTED_QUEUE_FULL, startTime);
+                }
+                long remainingNanos = admission.getMaxQueueTime().toNanos();
+                queuedUploads++;
+                try {
+                    while (!fits(clientId, bytes)) {
+                        if (remainingNanos <= 0) {
+                            return reject(REJECTED_TIMEOUT, startTime);
+                        }
+                        remainingNanos = released.awaitNanos(remainingNanos);
+                    }
+                } finally {
+                    queuedUploads--;
+                }
+            }
+            total.add(bytes);
+            clients.computeIfAbsent(clientId, key -> new Usage()).add(bytes);
+        } finally {
+            lock.unlock();
+        }
+        waitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return new Permit(clientId, bytes);
+    }
+
+    public Duration getRetryAfter() {
+        return admission.getRetryAfter();
+    }
+
+    // Whether an upload of the given size can be admitted now, called with the lock held
+    private boolean fits(String clientId, long bytes) {
+        Usage client = clients.get(clientId);
+        boolean clientFits = client == null
+                || (client.uploads < admission.getMaxConcurrentUploadsPerClient() && client.bytes + bytes <= maxInFlightBytesPerClient);
+        return clientFits && total.uploads < admission.getMaxConcurrentUploads() && total.bytes + bytes <= maxInFlightBytes;
+    }
+
+    private Permit reject(String reason, long startTime) {
+        waitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        rejectedCounters.withTags("reason", reason).increment();
+        return null;
+    }
+
+    private void release(String clientId, long bytes) {
+        lock.lock();
+        try {
+            total.remove(bytes);
+            Usage client = clients.get(clientId);
+            if (client != null) {
+                client.remove(bytes);
+                if (client.uploads == 0) {
+                    clients.remove(clientId);
+                }
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int getQueuedUploads() {
+        lock.lock();
+        try {
+            return queuedUploads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int getAdmittedUploads() {
+        lock.lock();
+        try {
+            return total.uploads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getAdmittedBytes() {
+        lock.lock();
+        try {
+            return total.bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The admission of one upload; releasing it more than once has no effect.
+     */
+    public final class Permit {
+
+        private final String clientId;
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String clientId, long bytes) {
+            this.clientId = clientId;
+            this.bytes = bytes;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                UploadAdmissionLimiter.this.release(clientId, bytes);
+            }
+        }
+    }
+
+    private static final class Usage {
+
+        private int uploads;
+        private long bytes;
+
+        private void add(long bytes) {
+            this.uploads++;
+            this.bytes += bytes;
+        }
+
+        private void remove(long bytes) {
+            this.uploads--;
+            this.bytes -= bytes;
+        }
+    }
+}
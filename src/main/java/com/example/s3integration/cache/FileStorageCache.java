@@ -0,0 +1,97 @@
+package com.example.s3integration.cache;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, size- and TTL-evicted cache of {@link FileStorage} entities keyed by file key,
+ * placed in front of {@link FileStorageRepository#findByFileKey(String)}.
+ *
+ * Cached entities are detached and shared between requests, so they must be treated as read-only.
+ * Code that modifies or deletes a file must load it from the repository and call {@link #invalidate(String)}.
+ * Hit, miss and eviction statistics are published as {@code cache.*} metrics with {@code cache=fileStorage}.
+ */
+@Component
+public class FileStorageCache {
+
+    // Invalidation generations, shared by the keys hashing to the same stripe
+    private static final int GENERATION_STRIPES = 64;
+
+    private final FileStorageRepository fileStorageRepository;
+    private final boolean enabled;
+    private final Cache<String, FileStorage> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public FileStorageCache(FileStorageRepository fileStorageRepository, StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) {
+        StorageConfigProperties.MetadataCache metadataCache = storageConfigProperties.getMetadataCache();
+        this.fileStorageRepository = fileStorageRepository;
+        this.enabled = metadataCache.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(metadataCache.getMaximumSize())
+                .expireAfterWrite(metadataCache.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fileStorage");
+    }
+
+    /**
+     * Finds the file metadata for a key, loading it from the repository on a cache miss.
+     * Keys that do not exist are not cached.
+     *
+     * @param fileKey the unique key of the file
+     * @return the file metadata, or empty if no file exists for the key
+     */
+    public Optional<FileStorage> findByFileKey(String fileKey) {
+        if (!enabled) {
+            return fileStorageRepository.findByFileKey(fileKey);
+        }
+        FileStorage fileStorage = cache.getIfPresent(fileKey);
+        if (fileStorage != null) {
+            return Optional.of(fileStorage);
+        }
+        // Loaded outside of Cache.get(key, loader): the loader would run inside a synchronized map bin and pin
+        // the carrier of a virtual thread for the whole query. Concurrent misses may load the same key twice.
+        // A load that an invalidation overtook may have read the old row, so it is not cached; checking the
+        // generation inside compute makes the check and the put atomic towards invalidate.
+        int stripe = stripe(fileKey);
+        long generation = generations.get(stripe);
+        Optional<FileStorage> loaded = fileStorageRepository.findByFileKey(fileKey);
+        loaded.ifPresent(entity -> cache.asMap().compute(fileKey,
+                (key, current) -> generations.get(stripe) == generation ? entity : current));
+        return loaded;
+    }
+
+    /**
+     * Removes the cached metadata of a file, so that the next lookup reads it from the repository.
+     *
+     * @param fileKey the unique key of the file
+     */
+    public void invalidate(String fileKey) {
+        // Bumped first, so a load still running is not cached after the entry is removed
+        generations.incrementAndGet(stripe(fileKey));
+        cache.invalidate(fileKey);
+    }
+
+    private static int stripe(String fileKey) {
+        return Math.floorMod(fileKey.hashCode(), GENERATION_STRIPES);
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction statistics of the cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.s3integration.cache;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A byte-budgeted, read-through cache of S3 objects on local disk, keyed by file path.
+ *
+ * Eviction is delegated to Caffeine's W-TinyLFU policy, weighted by object size, so that frequently read
+ * objects survive bursts of new ones. Objects are only written to disk once they were read
+ * {@code admissionThreshold} times within the admission window and are not larger than {@code maxObjectSize},
+ * which keeps large one-hit-wonders from thrashing the cache. Cached files are published atomically and
+ * deleted from disk when their entry is evicted or invalidated. Every file the cache creates starts with
+ * {@value #FILE_PREFIX}; only those are deleted on startup, so a shared directory keeps its other files.
+ *
+ * A file handed to the container for sendfile is opened by the container only after the request has been
+ * processed, when no request callback runs any more. It is therefore handed over as a hard link of its own,
+ * which keeps the content readable if the entry is evicted meanwhile and is deleted after {@link #LINK_RETENTION}.
+ */
+@Component
+public class ObjectDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectDiskCache.class);
+
+    private static final String FILE_PREFIX = "s3-object-cache-";
+
+    // Long enough for the container to have opened a linked file, which it does right after the request
+    private static final Duration LINK_RETENTION = Duration.ofMinutes(1);
+
+    private final StorageConfigProperties.DiskCache diskCache;
+    private final Path directory;
+    private final Cache<String, Path> entries;
+    private final Cache<String, AtomicInteger> readCounts;
+    private final Queue<Link> links = new ConcurrentLinkedQueue<>();
+
+    public ObjectDiskCache(StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) throws IOException {
+        this.diskCache = storageConfigProperties.getDiskCache();
+        this.directory = Path.of(diskCache.getDirectory());
+        this.entries = Caffeine.newBuilder()
+                // Weighed in kilobytes, so that the budget of large caches fits into the int weights
+                .maximumWeight(diskCache.getMaxSize().toKilobytes())
+                .<String, Path>weigher((filePath, cachedFile) -> (int) Math.max(1, sizeOf(cachedFile) / 1024))
+                .removalListener((filePath, cachedFile, cause) -> deleteQuietly(cachedFile))
+                .recordStats()
+                .build();
+        this.readCounts = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(diskCache.getAdmissionWindow())
+                .build();
+        if (diskCache.isEnabled()) {
+            Files.createDirectories(directory);
+            deleteLeftoverFiles();
+            CaffeineCacheMetrics.monitor(meterRegistry, entries, "objectDisk");
+        }
+    }
+
+    /**
+     * Returns the cached copy of an object, if there is one.
+     *
+     * @param filePath the path of the object in the S3 bucket
+     * @return the local file holding the object, or empty on a cache miss
+     */
+    public Optional<Path> get(String filePath) {
+        if (!diskCache.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entries.getIfPresent(filePath)).filter(Files::exists);
+    }
+
+    /**
+     * Creates a hard link to a cached file that stays readable for a while even if its entry is evicted or
+     * invalidated. The link is deleted by the cache once it expires.
+     *
+     * @param cachedFile a file returned by {@link #get(String)}
+     * @return the link, or empty if the file was evicted already or the file system does not support hard links
+     */
+    public Optional<Path> link(Path cachedFile) {
+        Path link = directory.resolve(FILE_PREFIX + UUID.randomUUID() + ".link");
+        try {
+            Files.createLink(link, cachedFile);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Could not link cache file {}: {}", cachedFile, e.getMessage());
+            return Optional.empty();
+        }
+        links.add(new Link(link, Instant.now().plus(LINK_RETENTION)));
+        return Optional.of(link);
+    }
+
+    // Deletes the links created for sendfile once they expired, links are queued in expiry order
+    @Scheduled(fixedDelay = 15_000)
+    public void deleteExpiredLinks() {
+        Instant now = Instant.now();
+        Link link;
+        while ((link = links.peek()) != null && link.expiresAt().isBefore(now)) {
+            if (links.remove(link)) {
+                deleteQuietly(link.path());
+            }
+        }
+    }
+
+    /**
+     * Records a read of an object and, once the object is admitted, copies the returned stream to the cache
+     * while it is being read. The cached copy is published when the stream is closed after being read completely.
+     *
+     * @param filePath the path of the object in the S3 bucket
+     * @param contentLength the size of the object in bytes
+     * @param source the stream of the object read from S3
+     * @return the stream to read the object from
+     */
+    public InputStream readThrough(String filePath, long contentLength, InputStream source) {
+        if (!diskCache.isEnabled() || contentLength > diskCache.getMaxObjectSize().toBytes()) {
+            return source;
+        }
+        int reads = readCounts.get(filePath, key -> new AtomicInteger()).incrementAndGet();
+        if (reads < diskCache.getAdmissionThreshold()) {
+            return source;
+        }
+        try {
+            Path tempFile = Files.createTempFile(directory, FILE_PREFIX, ".tmp");
+            return new CachingInputStream(source, filePath, contentLength, tempFile);
+        } catch (IOException e) {
+            logger.warn("Could not create cache file for {}: {}", filePath, e.getMessage());
+            return source;
+        }
+    }
+
+    /**
+     * Removes the cached copy of an object.
+     *
+     * @param filePath the path of the object in the S3 bucket
+     */
+    public void invalidate(String filePath) {
+        entries.invalidate(filePath);
+        readCounts.invalidate(filePath);
+    }
+
+    // Moves a completely read temp file into the cache
+    private void publish(String filePath, Path tempFile) {
+        try {
+            Path cachedFile = Files.move(tempFile, directory.resolve(FILE_PREFIX + UUID.randomUUID()), StandardCopyOption.ATOMIC_MOVE);
+            entries.put(filePath, cachedFile);
+            logger.debug("Cached {} on disk as {}", filePath, cachedFile);
+        } catch (IOException e) {
+            logger.warn("Could not publish cache file for {}: {}", filePath, e.getMessage());
+            deleteQuietly(tempFile);
+        }
+    }
+
+    // The index lives in memory only, so cache files left over from a previous run cannot be trusted
+    private void deleteLeftoverFiles() throws IOException {
+        int deletedFiles = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    deleteQuietly(file);
+                    deletedFiles++;
+                }
+            }
+        }
+        if (deletedFiles > 0) {
+            logger.info("Deleted {} cache files left over in {}", deletedFiles, directory);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record Link(Path path, Instant expiresAt) {
+    }
+
+    /**
+     * Copies every byte read from the source into a temp file. The copy is abandoned, without affecting the
+     * reader, if writing fails or the stream is closed before the expected number of bytes was read.
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final String filePath;
+        private final long contentLength;
+        private final Path tempFile;
+        private OutputStream cacheOutputStream;
+        private long bytesCopied;
+
+        private CachingInputStream(InputStream source, String filePath, long contentLength, Path tempFile) throws IOException {
+            super(source);
+            this.filePath = filePath;
+            this.contentLength = contentLength;
+            this.tempFile = tempFile;
+            this.cacheOutputStream = Files.newOutputStream(tempFile);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                copy(new byte[]{(byte) value}, 0, 1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int bytesRead = super.read(bytes, offset, length);
+            if (bytesRead > 0) {
+                copy(bytes, offset, bytesRead);
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (cacheOutputStream != null) {
+                    cacheOutputStream.close();
+                    if (bytesCopied == contentLength) {
+                        publish(filePath, tempFile);
+                    } else {
+                        deleteQuietly(tempFile);
+                    }
+                    cacheOutputStream = null;
+                }
+            }
+        }
+
+        private void copy(byte[] bytes, int offset, int length) {
+            if (cacheOutputStream == null) {
+                return;
+            }
+            try {
+                cacheOutputStream.write(bytes, offset, length);
+                bytesCopied += length;
+            } catch (IOException e) {
+                logger.warn("Could not write cache file for {}: {}", filePath, e.getMessage());
+                try {
+                    cacheOutputStream.close();
+                } catch (IOException ignored) {
+                    // The copy is abandoned anyway
+                }
+                cacheOutputStream = null;
+                deleteQuietly(tempFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.s3integration.cache;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Uploads that were handed out as presigned URLs and are not completed yet, keyed by file key.
+ *
+ * An entry remembers the path the URL was signed for, so that completing an upload can only register
+ * an object the application itself issued. Entries expire after the completion timeout; objects uploaded
+ * but never completed stay in the bucket without metadata. The pending uploads live in memory only, so an
+ * upload must be completed on the instance that issued it.
+ */
+@Component
+public class PendingUploadCache {
+
+    private final Cache<String, FileCreateRequest> cache;
+
+    public PendingUploadCache(StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) {
+        StorageConfigProperties.PresignedUpload presignedUpload = storageConfigProperties.getPresignedUpload();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(presignedUpload.getMaximumPending())
+                .expireAfterWrite(presignedUpload.getCompletionTimeout())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pendingUpload");
+    }
+
+    /**
+     * Remembers an issued upload until it is completed or expires.
+     *
+     * @param request the key and path the upload URL was signed for
+     */
+    public void put(FileCreateRequest request) {
+        cache.put(request.getFileKey(), request);
+    }
+
+    /**
+     * Finds a pending upload without completing it.
+     *
+     * @param fileKey the key of the upload
+     * @return the pending upload, or empty if it is unknown, expired or already completed
+     */
+    public Optional<FileCreateRequest> get(String fileKey) {
+        return Optional.ofNullable(cache.getIfPresent(fileKey));
+    }
+
+    /**
+     * Removes a pending upload and returns it, so that each upload can be completed only once.
+     *
+     * @param fileKey the key of the upload
+     * @return the pending upload, or empty if it is unknown, expired or already completed
+     */
+    public Optional<FileCreateRequest> remove(String fileKey) {
+        return Optional.ofNullable(cache.asMap().remove(fileKey));
+    }
+}
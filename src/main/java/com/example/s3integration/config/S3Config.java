@@ -1,25 +1,152 @@
 package com.example.s3integration.config;
 
 import com.example.s3integration.config.properties.S3ConfigProperties;
+import com.example.s3integration.transport.AdaptiveConcurrencyInterceptor;
+import com.example.s3integration.transport.AdaptiveConcurrencyLimiter;
+import com.example.s3integration.transport.S3TransportMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.retries.api.RetryStrategy;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3BaseClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @RequiredArgsConstructor
 public class S3Config {
 
     private final S3ConfigProperties s3ConfigProperties;
+    private final S3TransportMetrics s3TransportMetrics;
+
+    // Pooled Apache HTTP transport; every call runs under a permit of the adaptive concurrency limit when enabled
+    @Bean
+    public S3Client s3Client(ObjectProvider<AdaptiveConcurrencyLimiter> s3ConcurrencyLimiter) {
+        S3ConfigProperties.Http http = s3ConfigProperties.getHttp();
+        ClientOverrideConfiguration.Builder overrideConfiguration = ClientOverrideConfiguration.builder()
+                .retryStrategy(retryStrategy())
+                .addMetricPublisher(s3TransportMetrics.publisherFor("sync"));
+        s3ConcurrencyLimiter.ifAvailable(limiter -> overrideConfiguration.addExecutionInterceptor(new AdaptiveConcurrencyInterceptor(limiter)));
+        S3ClientBuilder builder = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(s3ConfigProperties.getAccessKey(), s3ConfigProperties.getSecretKey())))
+                .region(Region.of(s3ConfigProperties.getRegion()))
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(http.getMaxConnections())
+                        .connectionAcquisitionTimeout(http.getConnectionAcquisitionTimeout())
+                        .connectionTimeout(http.getConnectionTimeout())
+                        .socketTimeout(http.getSocketTimeout())
+                        .connectionMaxIdleTime(http.getConnectionMaxIdleTime()))
+                .overrideConfiguration(overrideConfiguration.build());
+        return configureEndpoint(builder).build();
+    }
+
+    // Limit on concurrent calls of the sync client that backs off when S3 answers with 503 SlowDown or 429
+    @Bean
+    @ConditionalOnProperty(prefix = "aws.s3.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AdaptiveConcurrencyLimiter s3ConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter(s3ConfigProperties.getConcurrencyLimit());
+    }
+
+    // Non-blocking client on a Netty NIO transport, only created when the async client type is selected
+    @Bean
+    @ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "async")
+    public S3AsyncClient s3AsyncClient() {
+        S3ConfigProperties.Multipart multipart = s3ConfigProperties.getMultipart();
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(s3ConfigProperties.getAccessKey(), s3ConfigProperties.getSecretKey())))
+                .region(Region.of(s3ConfigProperties.getRegion()))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(s3ConfigProperties.getAsync().getMaxConcurrency())
+                        .connectionAcquisitionTimeout(s3ConfigProperties.getHttp().getConnectionAcquisitionTimeout())
+                        .connectionTimeout(s3ConfigProperties.getHttp().getConnectionTimeout())
+                        .readTimeout(s3ConfigProperties.getHttp().getSocketTimeout())
+                        .connectionMaxIdleTime(s3ConfigProperties.getHttp().getConnectionMaxIdleTime()))
+                .overrideConfiguration(configuration -> configuration
+                        .retryStrategy(retryStrategy())
+                        .addMetricPublisher(s3TransportMetrics.publisherFor("async")))
+                // Large uploads are split into parts that are sent concurrently over the same NIO transport
+                .multipartEnabled(true)
+                .multipartConfiguration(configuration -> configuration
+                        .thresholdInBytes(multipart.getThreshold().toBytes())
+                        .minimumPartSizeInBytes(multipart.getMinPartSize().toBytes()));
+        return configureEndpoint(builder).build();
+    }
 
+    // Signs URLs locally, without a request to S3, so that clients can transfer file content directly
     @Bean
-    public S3Client s3Client() {
-        return S3Client.builder()
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(s3ConfigProperties.getAccessKey(), s3ConfigProperties.getSecretKey())))
                 .region(Region.of(s3ConfigProperties.getRegion()))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(s3ConfigProperties.isPathStyleAccess()).build());
+        if (StringUtils.hasText(s3ConfigProperties.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3ConfigProperties.getEndpoint()));
+        }
+        return builder.build();
+    }
+
+    // Bounded pool shared by all parallel part transfers, so concurrent large uploads cannot exhaust threads.
+    // With virtual threads every part gets its own thread; the number of parts in flight stays bounded per transfer.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3TransferExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-transfer-", 1).factory());
+        }
+        return Executors.newFixedThreadPool(s3ConfigProperties.getTransfer().getThreads(), new CustomizableThreadFactory("s3-transfer-"));
+    }
+
+    // Bounded pool for blocking calls of the sync client made on behalf of async callers, kept apart from the
+    // application task executor so that slow S3 calls cannot hold up downloads and async request processing.
+    // A full queue runs the call on the calling thread, which pushes back on the request that made it.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3BlockingExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Concurrency is bounded by the HTTP connection pool and the adaptive concurrency limit
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-blocking-", 1).factory());
+        }
+        S3ConfigProperties.BlockingCalls blockingCalls = s3ConfigProperties.getBlockingCalls();
+        return new ThreadPoolExecutor(blockingCalls.getThreads(), blockingCalls.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(blockingCalls.getQueueCapacity()), new CustomizableThreadFactory("s3-blocking-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Points a client at the custom endpoint, e.g. a local MinIO, when one is configured
+    private <B extends S3BaseClientBuilder<B, ?>> B configureEndpoint(B builder) {
+        if (StringUtils.hasText(s3ConfigProperties.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3ConfigProperties.getEndpoint()));
+        }
+        return builder.forcePathStyle(s3ConfigProperties.isPathStyleAccess());
+    }
+
+    // SDK retries back off exponentially with jitter; each client gets its own strategy and token bucket
+    private RetryStrategy retryStrategy() {
+        S3ConfigProperties.Retry retry = s3ConfigProperties.getRetry();
+        return AwsRetryStrategy.forRetryMode(retry.getMode()).toBuilder()
+                .maxAttempts(retry.getMaxAttempts())
                 .build();
     }
 }
@@ -0,0 +1,38 @@
+package com.example.s3integration.config;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.util.key.DatedFilePathLayout;
+import com.example.s3integration.util.key.FileKeyGenerator;
+import com.example.s3integration.util.key.FilePathLayout;
+import com.example.s3integration.util.key.RandomFileKeyGenerator;
+import com.example.s3integration.util.key.ShardedFilePathLayout;
+import com.example.s3integration.util.key.TimeOrderedFileKeyGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@RequiredArgsConstructor
+public class StorageConfig {
+
+    private final StorageConfigProperties storageConfigProperties;
+
+    // Generator of file keys and stored file names, selected by the configured key strategy
+    @Bean
+    public FileKeyGenerator fileKeyGenerator() {
+        return switch (storageConfigProperties.getKeyStrategy()) {
+            case RANDOM -> new RandomFileKeyGenerator();
+            case TIME_ORDERED -> new TimeOrderedFileKeyGenerator();
+        };
+    }
+
+    // Directory layout of new files below the main folder, selected by the configured path layout mode
+    @Bean
+    public FilePathLayout filePathLayout() {
+        StorageConfigProperties.PathLayout pathLayout = storageConfigProperties.getPathLayout();
+        return switch (pathLayout.getMode()) {
+            case DATED -> new DatedFilePathLayout();
+            case SHARDED -> new ShardedFilePathLayout(pathLayout.getShardCount());
+        };
+    }
+}
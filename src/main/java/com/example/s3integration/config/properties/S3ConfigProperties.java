@@ -4,6 +4,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.retry.RetryMode;
+
+import java.time.Duration;
 
 @Getter
 @Setter
@@ -15,4 +19,141 @@ public class S3ConfigProperties {
     private String accessKey;
     private String secretKey;
     private String bucketName;
+    // Custom S3 endpoint, e.g. a local MinIO; the AWS endpoint of the region is used when empty
+    private String endpoint;
+    // Addresses buckets as a path of the endpoint instead of a subdomain, required by most S3 compatible stores
+    private boolean pathStyleAccess = false;
+    private ClientType clientType = ClientType.SYNC;
+    private Async async = new Async();
+    private Transfer transfer = new Transfer();
+    private BlockingCalls blockingCalls = new BlockingCalls();
+    private Multipart multipart = new Multipart();
+    private Download download = new Download();
+    private Presign presign = new Presign();
+    private Http http = new Http();
+    private Retry retry = new Retry();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    @Getter
+    @Setter
+    public static class Async {
+
+        // Maximum number of concurrent requests of the NIO based async client
+        private int maxConcurrency = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class Transfer {
+
+        // Number of threads shared by all parallel part transfers
+        private int threads = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class BlockingCalls {
+
+        // Number of threads running blocking uploads, copies and deletes of the sync client for async callers
+        private int threads = 32;
+        // Calls waiting for a thread; beyond it the caller runs the call itself, which slows down new requests
+        private int queueCapacity = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Multipart {
+
+        // Files at least this large are uploaded as parallel multipart uploads
+        private DataSize threshold = DataSize.ofMegabytes(16);
+        // Smallest part size used for a multipart upload (S3 minimum is 5MB)
+        private DataSize minPartSize = DataSize.ofMegabytes(8);
+        // Part size grows beyond the minimum so that a file is split into at most this many parts (S3 maximum is 10000)
+        private int maxPartCount = 1000;
+        // Maximum number of parts of a single upload transferred at the same time
+        private int maxConcurrency = 8;
+        // How many times a single part is attempted before the whole upload is aborted
+        private int maxPartAttempts = 3;
+        // Delay before retrying a failed part, multiplied by the attempt number
+        private Duration retryBackoff = Duration.ofMillis(500);
+        // Files at least this large are copied as parallel part ranges (a single CopyObject is limited to 5GB)
+        private DataSize copyThreshold = DataSize.ofMegabytes(512);
+        // Smallest range copied by a single part of a multipart copy
+        private DataSize copyPartSize = DataSize.ofMegabytes(128);
+    }
+
+    @Getter
+    @Setter
+    public static class Download {
+
+        // Whether large full downloads are fetched as byte ranges in parallel and reassembled in order
+        private boolean parallelEnabled = true;
+        // Full downloads at least this large are fetched in parallel
+        private DataSize parallelThreshold = DataSize.ofMegabytes(64);
+        // Size of a single byte range, which is buffered in memory until it is written in order
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        // Maximum number of byte ranges of a single download fetched at the same time
+        private int maxConcurrency = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Presign {
+
+        // How long a presigned upload URL can be used
+        private Duration uploadExpiration = Duration.ofMinutes(15);
+        // How long a presigned download URL can be used
+        private Duration downloadExpiration = Duration.ofMinutes(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+
+        // Maximum number of pooled connections of the HTTP client of the sync client
+        private int maxConnections = 50;
+        // How long a request waits for a pooled connection before it fails
+        private Duration connectionAcquisitionTimeout = Duration.ofSeconds(10);
+        // How long establishing a new connection may take
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+        // How long a connection may stay silent while reading a response
+        private Duration socketTimeout = Duration.ofSeconds(30);
+        // Idle connections are closed after this time, before S3 closes them from its side
+        private Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+    }
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        // SDK retry mode; STANDARD and ADAPTIVE back off with jitter, ADAPTIVE also rate limits on throttling
+        private RetryMode mode = RetryMode.STANDARD;
+        // Maximum number of attempts of a single request, including the first one
+        private int maxAttempts = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class ConcurrencyLimit {
+
+        // Whether concurrent requests of the sync client are limited by an adaptive (AIMD) limit
+        private boolean enabled = true;
+        // Limit the client starts with
+        private int initialLimit = 32;
+        // The limit is never cut below this value
+        private int minLimit = 4;
+        // The limit never grows beyond this value, at most the number of pooled connections
+        private int maxLimit = 50;
+        // Factor the limit is multiplied by when S3 throttles a request
+        private double backoffRatio = 0.5;
+        // How long a request waits for a free slot before it fails
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+
+    public enum ClientType {
+        // Blocking S3Client, transfers run on the calling thread or the transfer executor
+        SYNC,
+        // Non-blocking S3AsyncClient on a Netty NIO transport for uploads, copies and deletes; servlet downloads still block
+        ASYNC
+    }
 }
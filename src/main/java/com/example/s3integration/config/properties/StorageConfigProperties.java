@@ -0,0 +1,278 @@
+package com.example.s3integration.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "spring-boot-s3-example.storage")
+public class StorageConfigProperties {
+
+    private String mainFolder;
+    // TIME_ORDERED generates keys that are appended to the key and path indexes, RANDOM spreads them evenly
+    private KeyStrategy keyStrategy = KeyStrategy.TIME_ORDERED;
+    private PathLayout pathLayout = new PathLayout();
+    private Deduplication deduplication = new Deduplication();
+    private Compression compression = new Compression();
+    private StreamUpload streamUpload = new StreamUpload();
+    private BatchUpload batchUpload = new BatchUpload();
+    private UploadJobs uploadJobs = new UploadJobs();
+    private UploadAdmission uploadAdmission = new UploadAdmission();
+    private BulkCopy bulkCopy = new BulkCopy();
+    private Deletion deletion = new Deletion();
+    private PresignedUpload presignedUpload = new PresignedUpload();
+    private MetadataCache metadataCache = new MetadataCache();
+    private DiskCache diskCache = new DiskCache();
+    private Reactive reactive = new Reactive();
+    private Reconciliation reconciliation = new Reconciliation();
+
+    @Getter
+    @Setter
+    public static class PathLayout {
+
+        // SHARDED spreads new files over hashed shard directories in front of the date, DATED uses the date only
+        private PathLayoutMode mode = PathLayoutMode.SHARDED;
+        // Number of shard directories of the SHARDED layout; changing it only affects new files
+        private int shardCount = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Deduplication {
+
+        // Whether uploads with the same content share one object, found by the SHA-256 digest computed while spooling
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Compression {
+
+        // Whether compressible uploads are stored compressed and served with a matching Content-Encoding
+        private boolean enabled = false;
+        // Codec of newly compressed objects; stored objects keep the codec recorded in their metadata
+        private CompressionCodec codec = CompressionCodec.GZIP;
+        // Deflate level from 1 (fastest) to 9 (smallest)
+        private int level = 6;
+        // Uploads smaller than this are stored as they are, the codec overhead outweighs the savings
+        private DataSize minSize = DataSize.ofKilobytes(1);
+        // Content types compressed unless their first bytes show an already compressed format; 'type/*' and '+suffix' patterns are supported
+        private List<String> contentTypes = new ArrayList<>(List.of("text/*", "application/json", "application/*+json", "application/x-ndjson",
+                "application/xml", "application/*+xml", "application/javascript", "application/yaml", "application/sql", "application/csv"));
+        // Content types whose first bytes decide, compressed if they look like text
+        private List<String> sniffedContentTypes = new ArrayList<>(List.of("application/octet-stream"));
+        // Number of leading bytes inspected by the content sniffing
+        private DataSize sniffSize = DataSize.ofKilobytes(4);
+    }
+
+    @Getter
+    @Setter
+    public static class StreamUpload {
+
+        // DIRECT pipes the request body to S3 in buffered parts, TEMP_FILE spools it to disk first
+        private StreamUploadMode mode = StreamUploadMode.DIRECT;
+        // Size of a single part buffer, which is also the memory cap of one streaming upload (S3 minimum is 5MB)
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        // Maximum number of part buffers shared by all concurrent streaming uploads
+        private int maxBuffers = 16;
+        // How long an upload waits for a free part buffer before it fails
+        private Duration bufferAcquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class BatchUpload {
+
+        // Maximum number of files of a single batch upload transferred to S3 at the same time
+        private int maxConcurrency = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class UploadJobs {
+
+        // Whether the upload job endpoints accept uploads and store them in the background
+        private boolean enabled = false;
+        // Spool directory of accepted uploads; it must survive restarts so that unfinished jobs are resumed
+        private String directory = System.getProperty("java.io.tmpdir") + "/s3-upload-jobs";
+        // Number of jobs uploaded to S3 at the same time
+        private int workers = 4;
+        // Number of accepted jobs waiting for a worker before new uploads are rejected
+        private int queueCapacity = 100;
+        // Attempts of a job before it is marked as failed; a failed job keeps its content until it is retried
+        private int maxAttempts = 5;
+        // Delay before the second attempt, doubled for every further attempt
+        private Duration retryBackoff = Duration.ofSeconds(5);
+        // Upper bound of the delay between two attempts
+        private Duration maxRetryBackoff = Duration.ofMinutes(5);
+        // Value of the Retry-After header of rejected uploads
+        private Duration retryAfter = Duration.ofSeconds(10);
+        // How long the status of a finished job is kept in memory
+        private Duration statusRetention = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class UploadAdmission {
+
+        // Whether requests to the upload endpoints have to be admitted before their body is read
+        private boolean enabled = false;
+        // Uploads admitted at the same time in total and per client
+        private int maxConcurrentUploads = 32;
+        private int maxConcurrentUploadsPerClient = 4;
+        // Bytes of admitted uploads by their Content-Length, in total and per client; a larger upload waits until it runs alone
+        private DataSize maxInFlightBytes = DataSize.ofGigabytes(2);
+        private DataSize maxInFlightBytesPerClient = DataSize.ofMegabytes(500);
+        // Bytes reserved for an upload without a Content-Length, e.g. a chunked stream
+        private DataSize unknownContentLength = DataSize.ofMegabytes(64);
+        // Uploads waiting for admission before new ones are rejected right away
+        private int maxQueuedUploads = 64;
+        // How long an upload waits for admission before it is rejected
+        private Duration maxQueueTime = Duration.ofSeconds(2);
+        // Value of the Retry-After header of rejected uploads
+        private Duration retryAfter = Duration.ofSeconds(5);
+        // Request header identifying the client, e.g. an API key or tenant header; the remote address if empty.
+        // It must be set or verified by a trusted proxy, a client choosing its own value escapes the per-client limits
+        private String clientHeader;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkCopy {
+
+        // Maximum number of files of a single bulk copy copied in S3 at the same time
+        private int maxConcurrency = 8;
+
+        // Maximum number of files copied by one request that selects them by prefix; the rest is copied by
+        // repeating the request with the returned cursor
+        private int maxPrefixFiles = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Deletion {
+
+        // IMMEDIATE deletes the object before the row, TOMBSTONE only marks the row and leaves the object to the collector
+        private DeletionMode mode = DeletionMode.IMMEDIATE;
+        // Pause between two collector runs; tombstones left by a previous TOMBSTONE mode are collected in every mode
+        private Duration collectInterval = Duration.ofSeconds(30);
+        // Number of tombstones read and deleted from S3 together, DeleteObjects takes at most 1000 keys
+        private int batchSize = 1000;
+        // Maximum number of objects the collector deletes per second, which leaves S3 request capacity to the API
+        private int maxDeletesPerSecond = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class PresignedUpload {
+
+        // How long after the URL was issued an upload can be completed, at least the URL expiration
+        private Duration completionTimeout = Duration.ofHours(1);
+        // Maximum number of issued uploads waiting for completion
+        private long maximumPending = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataCache {
+
+        // Whether file metadata lookups by key are served from an in-process cache
+        private boolean enabled = true;
+        // Maximum number of file metadata entries kept in the cache
+        private long maximumSize = 10_000;
+        // How long an entry is kept after it was loaded from the database
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class DiskCache {
+
+        // Whether downloaded objects are kept in a local read-through cache and served from disk
+        private boolean enabled = false;
+        // Directory holding the cached objects; the cache files left in it are deleted on startup, other files are kept
+        private String directory = System.getProperty("java.io.tmpdir") + "/s3-object-cache";
+        // Total size of all cached objects
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        // Objects larger than this are never cached
+        private DataSize maxObjectSize = DataSize.ofMegabytes(64);
+        // Number of reads within the admission window before an object is written to the cache
+        private int admissionThreshold = 2;
+        // How long reads of an object are remembered for admission
+        private Duration admissionWindow = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Reactive {
+
+        // Number of body chunks requested ahead from the client connection or the S3 response of a reactive transfer
+        private int prefetch = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Reconciliation {
+
+        // Bucket prefixes compared with the database, the main folder if empty; copy target directories outside of it must be added
+        private List<String> prefixes = new ArrayList<>();
+        // Maximum number of directories below the prefixes compared at the same time, each holding two connections;
+        // lowered at startup to use at most half of the connection pool
+        private int maxConcurrency = 2;
+        // Objects and rows younger than this are never reported; if unset or shorter, the presigned upload completion
+        // timeout plus 15 minutes, the longest a row may be saved after its object
+        private Duration gracePeriod;
+        // Maximum number of orphan objects and dangling rows listed in a report; all of them are counted
+        private int sampleSize = 100;
+        // Cron expression of the scheduled run, '-' disables it
+        private String cron = "-";
+        // What the scheduled run does with its findings
+        private ReconciliationMode scheduledMode = ReconciliationMode.REPORT;
+    }
+
+    public enum CompressionCodec {
+        // Deflate in the gzip format of RFC 1952, 'Content-Encoding: gzip'
+        GZIP
+    }
+
+    public enum DeletionMode {
+        // The caller waits for the object to be deleted from S3, then the row is deleted
+        IMMEDIATE,
+        // The row is marked as deleted and hidden, the tombstone collector deletes the object and the row later
+        TOMBSTONE
+    }
+
+    public enum KeyStrategy {
+        // Random version 4 UUIDs
+        RANDOM,
+        // Version 7 UUIDs, increasing per node with a random tail
+        TIME_ORDERED
+    }
+
+    public enum PathLayoutMode {
+        // <main-folder>/yyyyMMdd/<file>
+        DATED,
+        // <main-folder>/<shard>/yyyyMMdd/<file>
+        SHARDED
+    }
+
+    public enum ReconciliationMode {
+        // Only count and report orphan objects and dangling rows
+        REPORT,
+        // Delete orphan objects from the bucket and dangling rows from the database
+        DELETE
+    }
+
+    public enum StreamUploadMode {
+        DIRECT,
+        TEMP_FILE
+    }
+}
@@ -1,29 +1,76 @@
 package com.example.s3integration.controller;
 
+import com.example.s3integration.model.http.request.storage.FileBulkCopyRequest;
+import com.example.s3integration.model.http.request.storage.FileBulkDeleteRequest;
 import com.example.s3integration.model.http.request.storage.FileCopyRequest;
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.request.storage.PresignedUploadRequest;
+import com.example.s3integration.model.http.response.storage.FileBatchUploadResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
 import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
 import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
 import com.example.s3integration.service.FileStorageService;
+import com.example.s3integration.util.ContentCompressor;
 import com.example.s3integration.util.FileUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/storage")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FileStorageController {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageController.class);
 
+    // Request attributes of Tomcat's sendfile support, see org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     private final FileUtils fileUtils;
     private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Uploads a file using a traditional form-based POST request with {@link MultipartFile}.
@@ -32,14 +79,34 @@ public class FileStorageController {
      * However, for large file uploads, {@link #uploadFileStream(InputStreamResource, String)}
      * is recommended to reduce memory usage.
      *
+     * The request thread is released while the file is transferred to the storage; the response is
+     * completed asynchronously once the upload and the metadata save are done.
+     *
      * @param file the file to upload
-     * @return a response containing the uploaded file's metadata and generated key
+     * @return a future response containing the uploaded file's metadata and generated key
      */
     @PostMapping("/files")
-    public ResponseEntity<FileUploadResponse> uploadFile(@RequestParam MultipartFile file) {
+    public CompletableFuture<ResponseEntity<FileUploadResponse>> uploadFile(@RequestParam MultipartFile file) {
         logger.info("Received request to upload file: {}", file.getOriginalFilename());
-        FileUploadResponse response = fileStorageService.uploadFile(file);
-        logger.info("File '{}' uploaded successfully. Generated key: {}", file.getOriginalFilename(), response.getFileKey());
+        return fileStorageService.uploadFileAsync(file).thenApply(response -> {
+            logger.info("File '{}' uploaded successfully. Generated key: {}", file.getOriginalFilename(), response.getFileKey());
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    /**
+     * Uploads many files in a single multipart request.
+     * The files are transferred to the storage concurrently with bounded parallelism and their metadata is
+     * saved in batches; the response reports the outcome for every file in request order.
+     *
+     * @param files the files to upload
+     * @return the number of uploaded and failed files and the outcome for every file
+     */
+    @PostMapping(value = "/files/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<FileBatchUploadResponse> uploadFiles(@RequestParam List<MultipartFile> files) {
+        logger.info("Received request to upload {} files", files.size());
+        FileBatchUploadResponse response = fileStorageService.uploadFiles(files);
+        logger.info("Batch upload completed: {} uploaded, {} failed", response.getUploadedCount(), response.getFailedCount());
         return ResponseEntity.ok(response);
     }
 
@@ -60,55 +127,356 @@ public class FileStorageController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Issues a short-lived URL the client uploads a file to directly, bypassing this application.
+     * The client sends the file with the returned method and headers, then calls
+     * {@link #completePresignedUpload(String)} to register it.
+     *
+     * @param request the name and optional content type of the file
+     * @return the generated key of the file and the URL, method and headers of the upload request
+     */
+    @PostMapping("/files/presigned-upload")
+    public ResponseEntity<PresignedUrlResponse> createPresignedUpload(@Valid @RequestBody PresignedUploadRequest request) {
+        logger.info("Received request for a presigned upload URL for file: {}", request.getFileName());
+        return ResponseEntity.ok(fileStorageService.createPresignedUpload(request.getFileName(), request.getContentType()));
+    }
+
+    /**
+     * Registers a file uploaded through a presigned URL after verifying that it exists in the storage.
+     *
+     * @param key the key returned with the presigned upload URL
+     * @return a response containing the key of the registered file
+     */
+    @PostMapping("/files/{key}/complete")
+    public ResponseEntity<FileUploadResponse> completePresignedUpload(@PathVariable String key) {
+        logger.info("Received request to complete presigned upload with key: {}", key);
+        return ResponseEntity.ok(fileStorageService.completePresignedUpload(key));
+    }
+
+    /**
+     * Issues a short-lived URL the client downloads a file from directly, bypassing this application.
+     *
+     * @param key the key of the file to download
+     * @return the URL and method of the download request
+     */
+    @GetMapping("/files/{key}/presigned-download")
+    public ResponseEntity<PresignedUrlResponse> createPresignedDownload(@PathVariable String key) {
+        logger.debug("Received request for a presigned download URL for key: {}", key);
+        return ResponseEntity.ok(fileStorageService.createPresignedDownload(key));
+    }
+
+    /**
+     * Lists the metadata of stored files matching the given filters, ordered by creation time.
+     *
+     * The page is written as JSON while it is read from the database in chunks, each in a short transaction, so even
+     * large pages are not held in memory and a slow client does not hold a database connection:
+     * {@code {"files": [...], "nextCursor": "..."}}. The next page is requested with the returned cursor and the
+     * same filters; {@code nextCursor} is null on the last page.
+     *
+     * @param request the filters (original name prefix, content type, creation time range), the page size and the cursor
+     * @return a ResponseEntity with a StreamingResponseBody writing the page
+     */
+    @GetMapping(value = "/files", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listFiles(@Valid @ModelAttribute FileSearchRequest request) {
+        logger.debug("Received request to list files: {}", request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                        generator.writeStartObject();
+                        generator.writeArrayFieldStart("files");
+                        String nextCursor = fileStorageService.searchFiles(request, file -> {
+                            try {
+                                generator.writeObject(file);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                        generator.writeEndArray();
+                        generator.writeStringField("nextCursor", nextCursor);
+                        generator.writeEndObject();
+                    }
+                });
+    }
+
     /**
      * Retrieves a file from the storage system and streams it as a response.
      * This method is optimized for large files by avoiding memory overhead.
      *
+     * Requests with a {@code Range} header are answered with {@code 206 Partial Content}, each range being
+     * fetched from the storage as a ranged read; several ranges are returned as {@code multipart/byteranges}.
+     * With {@code If-Range}, the range is only sent if the given ETag (compared strongly) or date still matches
+     * the file, otherwise the whole file is sent.
+     * Conditional requests ({@code If-None-Match}, {@code If-Modified-Since}) are answered with
+     * {@code 304 Not Modified} from the stored metadata, without reaching the storage.
+     *
+     * Files stored compressed are sent as they are stored, with a {@code Content-Encoding} header, to clients whose
+     * {@code Accept-Encoding} allows it, and decompressed on the fly for the others. Both representations have their
+     * own ETag, and range requests are answered with the whole file.
+     *
      * @param key the unique key of the file to download
-     * @return a ResponseEntity with InputStreamResource for efficient streaming
+     * @param rangeHeader the optional HTTP Range header
+     * @param ifRange the optional HTTP If-Range header
+     * @param acceptEncoding the optional HTTP Accept-Encoding header
+     * @param webRequest the current request, used to evaluate conditional headers
+     * @param request the current servlet request, used to hand cached files to the container's sendfile support
+     * @param response the current servlet response, which varies by Accept-Encoding for compressed files
+     * @return a ResponseEntity with a StreamingResponseBody for efficient streaming
      */
-    @GetMapping(value = "/files/{key}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<InputStreamResource> downloadFile(@PathVariable String key) {
+    @GetMapping("/files/{key}")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable String key,
+                                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                                              @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                              WebRequest webRequest,
+                                                              HttpServletRequest request,
+                                                              HttpServletResponse response) {
         logger.debug("Received request to stream file with key: {}", key);
 
         // Retrieve file metadata
         FileMetadataResponse fileMetadata = fileStorageService.getFileMetadata(key);
+        // A compressed file is decompressed only for clients that do not accept its encoding
+        String contentEncoding = fileMetadata.getContentEncoding();
+        boolean decode = contentEncoding != null && !ContentCompressor.isAccepted(acceptEncoding, contentEncoding);
+        String etag = contentEncoding != null && !decode ? ContentCompressor.encodedEtag(fileMetadata.getEtag(), contentEncoding) : fileMetadata.getEtag();
+        if (contentEncoding != null) {
+            // Set on the servlet response, so that a 304 carries it as well
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        // Answer conditional requests from the stored validators; the response status and headers are set by checkNotModified
+        long lastModified = fileMetadata.getLastModified() != null ? fileMetadata.getLastModified().toEpochMilli() : -1;
+        if (etag != null && webRequest.checkNotModified(etag, lastModified)) {
+            logger.debug("File with key '{}' not modified", key);
+            return null;
+        }
+        // A range of a changed file would be appended to the client's part of the old one, so it gets the whole file instead
+        if (rangeHeader != null && ifRange != null && !ifRangeMatches(ifRange, etag, fileMetadata)) {
+            logger.debug("If-Range '{}' does not match file with key '{}', sending the whole file", ifRange, key);
+            rangeHeader = null;
+        }
         // Extract file name from storage path
         String fileName = fileUtils.extractFileNameFromPath(fileMetadata.getFilePath());
+        // Quotes and escapes the stored name, non-ASCII names are sent RFC 5987 encoded
+        String contentDisposition = ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString();
+        long fileLength = fileStorageService.getFileLength(fileMetadata);
+        MediaType contentType = fileMetadata.getContentType() != null ? MediaType.parseMediaType(fileMetadata.getContentType()) : MediaType.APPLICATION_OCTET_STREAM;
 
-        InputStreamResource fileStream = fileStorageService.getFile(key);
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .body(fileStream);
+        if (decode) {
+            logger.debug("Decompressing file with key '{}' for a client not accepting '{}'", key, contentEncoding);
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
+                    .contentType(contentType)
+                    .headers(validatorHeaders(etag, fileMetadata))
+                    .header(HttpHeaders.ACCEPT_RANGES, "none")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+            if (fileMetadata.getDecodedContentLength() != null) {
+                responseBuilder.contentLength(fileMetadata.getDecodedContentLength());
+            }
+            return responseBuilder.body(outputStream -> fileStorageService.writeDecodedFile(fileMetadata, fileLength, outputStream));
+        }
+
+        // Ranges of a compressed file would address its compressed bytes, so it is always sent whole
+        if (rangeHeader == null || contentEncoding != null) {
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
+                    .contentType(contentType)
+                    .contentLength(fileLength)
+                    .headers(validatorHeaders(etag, fileMetadata))
+                    .header(HttpHeaders.ACCEPT_RANGES, contentEncoding != null ? "none" : "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+            if (contentEncoding != null) {
+                responseBuilder.header(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            Optional<Path> cachedFile = fileStorageService.getCachedFile(fileMetadata);
+            if (cachedFile.isPresent()) {
+                logger.debug("Serving file with key '{}' from the local disk cache", key);
+                return serveCachedFile(cachedFile.get(), fileMetadata, fileLength, responseBuilder, request);
+            }
+            return responseBuilder.body(outputStream -> fileStorageService.writeFile(fileMetadata, fileLength, outputStream));
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Invalid Range header '{}' for key: {}", rangeHeader, key);
+            return rangeNotSatisfiable(fileLength);
+        }
+        if (ranges.isEmpty() || ranges.stream().anyMatch(range -> range.getRangeStart(fileLength) >= fileLength
+                || range.getRangeStart(fileLength) > range.getRangeEnd(fileLength))) {
+            return rangeNotSatisfiable(fileLength);
+        }
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(fileLength);
+            long end = ranges.get(0).getRangeEnd(fileLength);
+            InputStreamResource fileStream = fileStorageService.getFile(fileMetadata, start, end);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .contentType(contentType)
+                    .contentLength(end - start + 1)
+                    .headers(validatorHeaders(etag, fileMetadata))
+                    .header(HttpHeaders.CONTENT_RANGE, contentRange(start, end, fileLength))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .body(outputStream -> {
+                        try (InputStream inputStream = fileStream.getInputStream()) {
+                            inputStream.transferTo(outputStream);
+                        }
+                    });
+        }
+
+        // Several ranges are sent as one multipart/byteranges body, each part fetched from the storage in turn
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .headers(validatorHeaders(etag, fileMetadata))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                .body(outputStream -> {
+                    for (HttpRange range : ranges) {
+                        long start = range.getRangeStart(fileLength);
+                        long end = range.getRangeEnd(fileLength);
+                        String partHeaders = "\r\n--" + boundary + "\r\n"
+                                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                                + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, fileLength) + "\r\n\r\n";
+                        outputStream.write(partHeaders.getBytes(StandardCharsets.US_ASCII));
+                        try (InputStream inputStream = fileStorageService.getFile(fileMetadata, start, end).getInputStream()) {
+                            inputStream.transferTo(outputStream);
+                        }
+                    }
+                    outputStream.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                });
     }
 
     /**
      * Deletes a file from storage using its unique key.
+     * The request thread is released while the file is deleted.
      *
      * @param key the key of the file to delete
      * @return HTTP 204 No Content if deletion is successful
      */
     @DeleteMapping("/files/{key}")
-    public ResponseEntity<Void> deleteFile(@PathVariable String key) {
+    public CompletableFuture<ResponseEntity<Void>> deleteFile(@PathVariable String key) {
         logger.info("Received request to delete file with key: {}", key);
-        fileStorageService.deleteFile(key);
-        logger.info("File with key '{}' deleted successfully.", key);
-        return ResponseEntity.noContent().build();
+        return fileStorageService.deleteFileAsync(key).thenApply(result -> {
+            logger.info("File with key '{}' deleted successfully.", key);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    /**
+     * Deletes many files from storage in one request.
+     * Files are deleted from S3 in parallel batches and their metadata with a single statement; the response
+     * reports the outcome for every key, so a partial failure does not fail the whole request.
+     *
+     * @param request a request containing the keys of the files to delete
+     * @return the number of deleted and failed files and the outcome for every key
+     */
+    @PostMapping("/files/delete")
+    public ResponseEntity<FileBulkDeleteResponse> deleteFiles(@Valid @RequestBody FileBulkDeleteRequest request) {
+        logger.info("Received request to delete {} files", request.getKeys().size());
+        FileBulkDeleteResponse response = fileStorageService.deleteFiles(request.getKeys());
+        logger.info("Bulk delete completed: {} deleted, {} failed", response.getDeletedCount(), response.getFailedCount());
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Copies an existing file to a new directory within the same storage system.
+     * The request thread is released while the file is copied.
      *
      * @param key the key of the file to copy
      * @param request a request containing the target directory path
      * @return HTTP 204 No Content if the copy operation is successful
      */
     @PostMapping("/files/{key}/copy")
-    public ResponseEntity<String> copyFile(@PathVariable String key, @RequestBody FileCopyRequest request) {
+    public CompletableFuture<ResponseEntity<Void>> copyFile(@PathVariable String key, @RequestBody FileCopyRequest request) {
         logger.info("Received request to copy file from key '{}' to '{}'", key, request.getTargetDirectory());
-        fileStorageService.copyFile(key, request.getTargetDirectory());
-        logger.info("File copied successfully from key '{}' to '{}'", key, request.getTargetDirectory());
-        return ResponseEntity.noContent().build();
+        return fileStorageService.copyFileAsync(key, request.getTargetDirectory()).thenApply(result -> {
+            logger.info("File copied successfully from key '{}' to '{}'", key, request.getTargetDirectory());
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    /**
+     * Copies many files into a target directory in one request, selected either by key or by a path prefix
+     * such as a date folder. The copies run concurrently; the response reports the outcome for every key,
+     * so a partial failure does not fail the whole request. A copy by prefix stops at a configured number of
+     * files; the request is repeated with the returned nextCursor until none is returned.
+     *
+     * @param request a request containing the keys or the path prefix of the files and the target directory
+     * @return the number of copied and failed files, the outcome for every key and the cursor of the next copy, if any
+     */
+    @PostMapping("/files/copy")
+    public ResponseEntity<FileBulkCopyResponse> copyFiles(@Valid @RequestBody FileBulkCopyRequest request) {
+        logger.info("Received request to copy files to '{}'", request.getTargetDirectory());
+        FileBulkCopyResponse response = fileStorageService.copyFiles(request.getKeys(), request.getSourcePrefix(), request.getCursor(), request.getTargetDirectory());
+        logger.info("Bulk copy completed: {} copied, {} failed", response.getCopiedCount(), response.getFailedCount());
+        return ResponseEntity.ok(response);
+    }
+
+    // Serves a file from the local disk cache without copying it through the heap
+    private ResponseEntity<StreamingResponseBody> serveCachedFile(Path cachedFile, FileMetadataResponse fileMetadata, long fileLength,
+                                                                  ResponseEntity.BodyBuilder responseBuilder, HttpServletRequest request) {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+            // Tomcat opens the file for sendfile only after the request was processed, and has no fallback if it is gone
+            // by then; it gets a link of its own, which an eviction of the cached file does not delete
+            Optional<Path> link = fileStorageService.linkCachedFile(cachedFile);
+            if (link.isPresent()) {
+                // The body must stay empty, Tomcat writes the file when the response is committed
+                request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, link.get().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+                request.setAttribute(SENDFILE_END_ATTRIBUTE, fileLength);
+                return responseBuilder.build();
+            }
+        }
+        return responseBuilder.body(outputStream -> {
+            try (FileChannel channel = FileChannel.open(cachedFile, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < fileLength) {
+                    position += channel.transferTo(position, fileLength - position, target);
+                }
+            } catch (NoSuchFileException e) {
+                // Evicted between the lookup and the read, fall back to the storage
+                fileStorageService.writeFile(fileMetadata, fileLength, outputStream);
+            }
+        });
+    }
+
+    // Builds a 416 response that tells the client the actual size of the file
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long fileLength) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength)
+                .build();
+    }
+
+    // If-Range holds either an entity tag, which must be strongly equal to the ETag, or a date, which must be the exact Last-Modified
+    private boolean ifRangeMatches(String ifRange, String etag, FileMetadataResponse fileMetadata) {
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return etag != null && !value.startsWith("W/") && !etag.startsWith("W/") && value.equals(etag);
+        }
+        if (fileMetadata.getLastModified() == null) {
+            return false;
+        }
+        try {
+            Instant date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return date.getEpochSecond() == fileMetadata.getLastModified().getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Builds the ETag and Last-Modified headers of a file from the ETag of the sent representation and its stored metadata
+    private HttpHeaders validatorHeaders(String etag, FileMetadataResponse fileMetadata) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (fileMetadata.getLastModified() != null) {
+            headers.setLastModified(fileMetadata.getLastModified());
+        }
+        return headers;
+    }
+
+    // Formats the value of a Content-Range header
+    private String contentRange(long start, long end, long fileLength) {
+        return "bytes " + start + "-" + end + "/" + fileLength;
     }
 }
@@ -0,0 +1,266 @@
+package com.example.s3integration.controller;
+
+import com.example.s3integration.model.http.request.storage.FileBulkCopyRequest;
+import com.example.s3integration.model.http.request.storage.FileBulkDeleteRequest;
+import com.example.s3integration.model.http.request.storage.FileCopyRequest;
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.request.storage.PresignedUploadRequest;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
+import com.example.s3integration.model.http.response.storage.FileListResponse;
+import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
+import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
+import com.example.s3integration.service.ReactiveFileStorageService;
+import com.example.s3integration.util.ContentCompressor;
+import com.example.s3integration.util.FileUtils;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * WebFlux variant of the storage API, active when the application runs as a reactive web application
+ * ({@code spring.main.web-application-type=reactive}) on the async S3 client.
+ *
+ * Request and response bodies are streamed as data buffers between the HTTP connection and S3 with bounded
+ * demand, so a slow client or a slow S3 connection throttles the other side instead of filling memory,
+ * and a client disconnect cancels the S3 request.
+ *
+ * Presigned transfers, listing and bulk deletes and copies call the blocking storage service on worker threads.
+ * Multipart uploads, batch uploads and upload jobs are only served by the servlet API, streamed uploads are
+ * neither deduplicated nor compressed, and range requests are answered with the whole file.
+ */
+@RestController
+@RequestMapping("/api/storage")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "async")
+public class ReactiveFileStorageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFileStorageController.class);
+
+    private final FileUtils fileUtils;
+    private final ReactiveFileStorageService reactiveFileStorageService;
+
+    /**
+     * Uploads a request body to the storage while it is received.
+     * The request must declare its {@code Content-Length}, which S3 needs before the first byte is sent.
+     *
+     * @param content the file content as a stream of data buffers
+     * @param fileName the original name of the file
+     * @param headers the request headers
+     * @return a response containing the uploaded file's metadata and generated key
+     */
+    @PostMapping(value = "/files/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<FileUploadResponse>> uploadFileStream(@RequestBody Flux<DataBuffer> content,
+                                                                     @RequestHeader(value = "filename") String fileName,
+                                                                     @RequestHeader HttpHeaders headers) {
+        long contentLength = headers.getContentLength();
+        if (contentLength < 0) {
+            logger.debug("Rejected streamed upload of '{}' without a Content-Length", fileName);
+            return Mono.just(ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build());
+        }
+        logger.info("Received a reactive file upload request. File Name: {}", fileName);
+        return reactiveFileStorageService.uploadFileStream(content, fileName, contentLength)
+                .map(response -> {
+                    logger.info("File '{}' uploaded successfully using reactive streaming. Generated key: {}", fileName, response.getFileKey());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Issues a short-lived URL the client uploads a file to directly, bypassing this application.
+     * The client sends the file with the returned method and headers, then calls
+     * {@link #completePresignedUpload(String)} to register it.
+     *
+     * @param request the name and optional content type of the file
+     * @return the generated key of the file and the URL, method and headers of the upload request
+     */
+    @PostMapping("/files/presigned-upload")
+    public Mono<ResponseEntity<PresignedUrlResponse>> createPresignedUpload(@Valid @RequestBody PresignedUploadRequest request) {
+        logger.info("Received request for a presigned upload URL for file: {}", request.getFileName());
+        return reactiveFileStorageService.createPresignedUpload(request.getFileName(), request.getContentType())
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Registers a file uploaded through a presigned URL after verifying that it exists in the storage.
+     *
+     * @param key the key returned with the presigned upload URL
+     * @return a response containing the key of the registered file
+     */
+    @PostMapping("/files/{key}/complete")
+    public Mono<ResponseEntity<FileUploadResponse>> completePresignedUpload(@PathVariable String key) {
+        logger.info("Received request to complete presigned upload with key: {}", key);
+        return reactiveFileStorageService.completePresignedUpload(key)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Issues a short-lived URL the client downloads a file from directly, bypassing this application.
+     *
+     * @param key the key of the file to download
+     * @return the URL and method of the download request
+     */
+    @GetMapping("/files/{key}/presigned-download")
+    public Mono<ResponseEntity<PresignedUrlResponse>> createPresignedDownload(@PathVariable String key) {
+        logger.debug("Received request for a presigned download URL for key: {}", key);
+        return reactiveFileStorageService.createPresignedDownload(key)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Lists the metadata of stored files matching the given filters, ordered by creation time, in the same
+     * format as the servlet API: {@code {"files": [...], "nextCursor": "..."}}.
+     * The page is collected before it is written, so its size is bounded by the page limit.
+     *
+     * @param request the filters (original name prefix, content type, creation time range), the page size and the cursor
+     * @return the page of file metadata and the cursor of the next page
+     */
+    @GetMapping(value = "/files", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<FileListResponse>> listFiles(@Valid @ModelAttribute FileSearchRequest request) {
+        logger.debug("Received request to list files: {}", request);
+        return reactiveFileStorageService.searchFiles(request)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams a file from the storage system.
+     * Conditional requests are answered with {@code 304 Not Modified} from the stored metadata. Range requests
+     * are not supported by this variant; the whole file is always returned. Files stored compressed are sent as
+     * they are stored, with a {@code Content-Encoding} header, to clients accepting the encoding and decompressed
+     * while they stream to all others.
+     *
+     * @param key the unique key of the file to download
+     * @param exchange the current exchange, used to evaluate conditional and Accept-Encoding headers
+     * @return a response streaming the file content
+     */
+    @GetMapping("/files/{key}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFile(@PathVariable String key, ServerWebExchange exchange) {
+        logger.debug("Received request to stream file with key: {}", key);
+        return reactiveFileStorageService.getFileMetadata(key).flatMap(fileMetadata -> {
+            // A compressed file is decompressed only for clients that do not accept its encoding
+            String contentEncoding = fileMetadata.getContentEncoding();
+            boolean decode = contentEncoding != null
+                    && !ContentCompressor.isAccepted(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING), contentEncoding);
+            String etag = contentEncoding != null && !decode ? ContentCompressor.encodedEtag(fileMetadata.getEtag(), contentEncoding) : fileMetadata.getEtag();
+            if (contentEncoding != null) {
+                // Set on the exchange, so that a 304 carries it as well
+                exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+            }
+            // Answer conditional requests from the stored validators; the response status and headers are set by checkNotModified
+            if (etag != null && exchange.checkNotModified(etag, lastModified(fileMetadata))) {
+                logger.debug("File with key '{}' not modified", key);
+                return Mono.empty();
+            }
+            String fileName = fileUtils.extractFileNameFromPath(fileMetadata.getFilePath());
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(fileMetadata.getContentType() != null ? MediaType.parseMediaType(fileMetadata.getContentType()) : MediaType.APPLICATION_OCTET_STREAM);
+            Long contentLength = decode ? fileMetadata.getDecodedContentLength() : fileMetadata.getContentLength();
+            if (contentLength != null) {
+                headers.setContentLength(contentLength);
+            }
+            if (etag != null) {
+                headers.setETag(etag);
+            }
+            if (contentEncoding != null && !decode) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            if (fileMetadata.getLastModified() != null) {
+                headers.setLastModified(fileMetadata.getLastModified());
+            }
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build());
+            return Mono.just(ResponseEntity.ok().headers(headers).body(reactiveFileStorageService.getFile(fileMetadata, decode)));
+        });
+    }
+
+    /**
+     * Deletes a file from storage using its unique key.
+     *
+     * @param key the key of the file to delete
+     * @return HTTP 204 No Content if deletion is successful
+     */
+    @DeleteMapping("/files/{key}")
+    public Mono<ResponseEntity<Void>> deleteFile(@PathVariable String key) {
+        logger.info("Received request to delete file with key: {}", key);
+        return reactiveFileStorageService.deleteFile(key)
+                .then(Mono.fromSupplier(() -> {
+                    logger.info("File with key '{}' deleted successfully.", key);
+                    return ResponseEntity.noContent().build();
+                }));
+    }
+
+    /**
+     * Copies an existing file to a new directory within the same storage system.
+     *
+     * @param key the key of the file to copy
+     * @param request a request containing the target directory path
+     * @return HTTP 204 No Content if the copy operation is successful
+     */
+    @PostMapping("/files/{key}/copy")
+    public Mono<ResponseEntity<Void>> copyFile(@PathVariable String key, @RequestBody FileCopyRequest request) {
+        logger.info("Received request to copy file from key '{}' to '{}'", key, request.getTargetDirectory());
+        return reactiveFileStorageService.copyFile(key, request.getTargetDirectory())
+                .then(Mono.fromSupplier(() -> {
+                    logger.info("File copied successfully from key '{}' to '{}'", key, request.getTargetDirectory());
+                    return ResponseEntity.noContent().build();
+                }));
+    }
+
+    /**
+     * Deletes many files from storage in one request.
+     * The response reports the outcome for every key, so a partial failure does not fail the whole request.
+     *
+     * @param request a request containing the keys of the files to delete
+     * @return the number of deleted and failed files and the outcome for every key
+     */
+    @PostMapping("/files/delete")
+    public Mono<ResponseEntity<FileBulkDeleteResponse>> deleteFiles(@Valid @RequestBody FileBulkDeleteRequest request) {
+        logger.info("Received request to delete {} files", request.getKeys().size());
+        return reactiveFileStorageService.deleteFiles(request.getKeys())
+                .map(response -> {
+                    logger.info("Bulk delete completed: {} deleted, {} failed", response.getDeletedCount(), response.getFailedCount());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Copies many files into a target directory in one request, selected either by key or by a path prefix.
+     * A copy by prefix stops at a configured number of files; the request is repeated with the returned
+     * nextCursor until none is returned.
+     *
+     * @param request a request containing the keys or the path prefix of the files and the target directory
+     * @return the number of copied and failed files, the outcome for every key and the cursor of the next copy, if any
+     */
+    @PostMapping("/files/copy")
+    public Mono<ResponseEntity<FileBulkCopyResponse>> copyFiles(@Valid @RequestBody FileBulkCopyRequest request) {
+        logger.info("Received request to copy files to '{}'", request.getTargetDirectory());
+        return reactiveFileStorageService.copyFiles(request.getKeys(), request.getSourcePrefix(), request.getCursor(), request.getTargetDirectory())
+                .map(response -> {
+                    logger.info("Bulk copy completed: {} copied, {} failed", response.getCopiedCount(), response.getFailedCount());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    // Last-Modified of a file, or a time before the epoch if unknown so that only the ETag is evaluated
+    private Instant lastModified(FileMetadataResponse fileMetadata) {
+        return fileMetadata.getLastModified() != null ? fileMetadata.getLastModified() : Instant.ofEpochMilli(-1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.s3integration.controller;
+
+import com.example.s3integration.admission.UploadAdmissionFilter;
+import com.example.s3integration.job.UploadJobService;
+import com.example.s3integration.model.http.response.storage.UploadJobResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/storage/upload-jobs")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "spring-boot-s3-example.storage.upload-jobs", name = "enabled", havingValue = "true")
+public class UploadJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobController.class);
+
+    private final UploadJobService uploadJobService;
+
+    /**
+     * Accepts a file as soon as it is spooled to disk and uploads it to the storage in the background.
+     * The response carries the generated key of the file, its status is polled from the returned location.
+     * If too many uploads are pending the file is rejected with 503 and a Retry-After header; the multipart
+     * body has been received by then, only the upload admission filter rejects it before.
+     *
+     * The admission permit of the request is held until the job is stored or has failed.
+     *
+     * @param file the file to upload
+     * @param request the current request, holding the admission permit
+     * @return 202 with the status of the queued job
+     */
+    @PostMapping
+    public ResponseEntity<UploadJobResponse> submitUpload(@RequestParam MultipartFile file, HttpServletRequest request) {
+        logger.info("Received upload job request for file: {}", file.getOriginalFilename());
+        return accepted(uploadJobService.submit(file, UploadAdmissionFilter.takePermit(request)));
+    }
+
+    /**
+     * Accepts a file stream as soon as it is spooled to disk and uploads it to the storage in the background.
+     *
+     * The admission permit of the request is held until the job is stored or has failed.
+     *
+     * @param fileStream the file content as an InputStreamResource
+     * @param fileName the name of the file
+     * @param request the current request, holding the admission permit
+     * @return 202 with the status of the queued job
+     * @throws IOException if the request body cannot be opened
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadJobResponse> submitUploadStream(@RequestBody InputStreamResource fileStream,
+                                                                @RequestHeader(value = "filename") String fileName,
+                                                                HttpServletRequest request) throws IOException {
+        logger.info("Received upload job request using streaming. File Name: {}", fileName);
+        try (InputStream inputStream = fileStream.getInputStream()) {
+            return accepted(uploadJobService.submit(inputStream, fileName, UploadAdmissionFilter.takePermit(request)));
+        }
+    }
+
+    /**
+     * Returns the status of an upload job.
+     *
+     * @param fileKey the key of the file returned when the upload was accepted
+     * @return the status of the job, or 404 if neither the job nor the file is known
+     */
+    @GetMapping("/{fileKey}")
+    public ResponseEntity<UploadJobResponse> getUploadJob(@PathVariable String fileKey) {
+        return uploadJobService.getJob(fileKey)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Queues a job that failed all its attempts again; its spooled content is kept until it is stored.
+     *
+     * @param fileKey the key of the file of the failed job
+     * @return 202 with the status of the queued job, or 404 if there is no failed job with this key
+     */
+    @PostMapping("/{fileKey}/retry")
+    public ResponseEntity<UploadJobResponse> retryUploadJob(@PathVariable String fileKey) {
+        logger.info("Received request to retry upload job with key: {}", fileKey);
+        return uploadJobService.retry(fileKey)
+                .map(UploadJobController::accepted)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<UploadJobResponse> accepted(UploadJobResponse response) {
+        logger.info("Upload job accepted. Generated key: {}", response.getFileKey());
+        return ResponseEntity.accepted()
+                .location(UriComponentsBuilder.fromPath("/api/storage/upload-jobs/{fileKey}").build(response.getFileKey()))
+                .body(response);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.s3integration.deletion;
+
+import com.example.s3integration.cache.ObjectDiskCache;
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.service.S3ClientService;
+import com.example.s3integration.service.StoredObjectService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes the files marked as deleted in tombstone mode.
+ *
+ * Every run walks the tombstones in id order, a batch at a time: deduplicated files give back their reference
+ * and the objects no longer referenced are deleted, the objects of the other files are deleted with one
+ * {@code DeleteObjects} request per batch and their rows are removed afterwards. A failed object keeps its
+ * tombstone and is retried by the next run. Batches are paced to stay below the configured deletion rate.
+ */
+@Component
+public class TombstoneCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(TombstoneCollector.class);
+
+    // DeleteObjects takes at most 1000 keys
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final FileStorageRepository fileStorageRepository;
+    private final StoredObjectService storedObjectService;
+    private final S3ClientService s3ClientService;
+    private final ObjectDiskCache objectDiskCache;
+    private final StorageConfigProperties.Deletion deletion;
+    private final Counter collectedCounter;
+    private final Counter failedCounter;
+
+    public TombstoneCollector(FileStorageRepository fileStorageRepository, StoredObjectService storedObjectService, S3ClientService s3ClientService,
+                              ObjectDiskCache objectDiskCache, StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) {
+        this.fileStorageRepository = fileStorageRepository;
+        this.storedObjectService = storedObjectService;
+        this.s3ClientService = s3ClientService;
+        this.objectDiskCache = objectDiskCache;
+        this.deletion = storageConfigProperties.getDeletion();
+        this.collectedCounter = Counter.builder("storage.tombstones.collected")
+                .description("Deleted files whose object and row were removed by the tombstone collector").register(meterRegistry);
+        this.failedCounter = Counter.builder("storage.tombstones.failed")
+                .description("Objects of deleted files the tombstone collector failed to delete, retried by its next run").register(meterRegistry);
+    }
+
+    // Collects all tombstones present when the run starts, each failed one once; the interval is read from the
+    // bound properties, as @Scheduled does not parse durations such as '30s'
+    @Scheduled(fixedDelayString = "#{@storageConfigProperties.deletion.collectInterval.toMillis()}")
+    public void collect() {
+        int batchSize = Math.min(Math.max(deletion.getBatchSize(), 1), MAX_BATCH_SIZE);
+        long afterId = 0;
+        long collected = 0;
+        try {
+            List<FileStorage> tombstones;
+            do {
+                long batchStart = System.nanoTime();
+                tombstones = fileStorageRepository.findDeleted(afterId, batchSize);
+                if (tombstones.isEmpty()) {
+                    break;
+                }
+                afterId = tombstones.getLast().getId();
+                collected += collectBatch(tombstones);
+                pace(tombstones.size(), batchStart);
+            } while (tombstones.size() == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The remaining tombstones are picked up by the next run
+            logger.error("Tombstone collection failed after {} files", collected, e);
+        }
+        if (collected > 0) {
+            logger.info("Tombstone collection removed {} deleted files", collected);
+        }
+    }
+
+    // Removes one batch of deleted files, returns the number of removed rows
+    private int collectBatch(List<FileStorage> tombstones) {
+        Map<Boolean, List<FileStorage>> tombstonesBySharing = tombstones.stream()
+                .collect(Collectors.partitioningBy(fileStorage -> fileStorage.getContentHash() != null));
+        // Deduplicated objects are only deleted with the last file pointing to them
+        List<FileStorage> sharedFiles = tombstonesBySharing.get(true);
+        if (!sharedFiles.isEmpty()) {
+            Set<String> unreferencedPaths = storedObjectService.delete(sharedFiles);
+            if (!unreferencedPaths.isEmpty()) {
+                unreferencedPaths.forEach(objectDiskCache::invalidate);
+                // Failures leave orphans for the reconciliation, the references are already gone
+                s3ClientService.deleteFiles(unreferencedPaths)
+                        .forEach((filePath, error) -> logger.warn("Failed to delete unreferenced object '{}': {}", filePath, error));
+            }
+        }
+        List<FileStorage> ownFiles = tombstonesBySharing.get(false);
+        Map<String, String> failedPaths = ownFiles.isEmpty() ? Map.of() : s3ClientService.deleteFiles(ownFiles.stream().map(FileStorage::getFilePath).toList());
+        failedPaths.forEach((filePath, error) -> logger.warn("Failed to delete object '{}' of a deleted file, retrying later: {}", filePath, error));
+        List<FileStorage> deletedFiles = ownFiles.stream()
+                .filter(fileStorage -> !failedPaths.containsKey(fileStorage.getFilePath()))
+                .toList();
+        if (!deletedFiles.isEmpty()) {
+            fileStorageRepository.deleteByIdIn(deletedFiles.stream().map(FileStorage::getId).toList());
+            deletedFiles.forEach(fileStorage -> objectDiskCache.invalidate(fileStorage.getFilePath()));
+        }
+        int removed = sharedFiles.size() + deletedFiles.size();
+        collectedCounter.increment(removed);
+        failedCounter.increment(failedPaths.size());
+        return removed;
+    }
+
+    // Waits until a batch of the given size fits into the deletion rate
+    private void pace(int batchSize, long batchStart) throws InterruptedException {
+        int maxDeletesPerSecond = deletion.getMaxDeletesPerSecond();
+        if (maxDeletesPerSecond <= 0) {
+            return;
+        }
+        long remainingNanos = TimeUnit.SECONDS.toNanos(batchSize) / maxDeletesPerSecond - (System.nanoTime() - batchStart);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+}
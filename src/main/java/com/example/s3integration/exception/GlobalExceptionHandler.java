@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -35,7 +37,20 @@ public class GlobalExceptionHandler {
     @ResponseBody
     public ApiError handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         logger.warn("Validation error", ex);
-        List<FieldError> fieldErrors = getErrors(ex);
+        List<FieldError> fieldErrors = getErrors(ex.getBindingResult());
+        ErrorDetails errorDetails = new ErrorDetails(ErrorType.VALIDATION, fieldErrors);
+        return new ApiError(GlobalErrorConstants.ERR001.code(), GlobalErrorConstants.ERR001.message(), errorDetails);
+    }
+
+    /**
+     * Handle validation errors from request payload binding in the reactive API.
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseBody
+    public ApiError handleWebExchangeBindException(WebExchangeBindException ex) {
+        logger.warn("Validation error", ex);
+        List<FieldError> fieldErrors = getErrors(ex.getBindingResult());
         ErrorDetails errorDetails = new ErrorDetails(ErrorType.VALIDATION, fieldErrors);
         return new ApiError(GlobalErrorConstants.ERR001.code(), GlobalErrorConstants.ERR001.message(), errorDetails);
     }
@@ -74,13 +89,13 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * Transforms binding errors from a MethodArgumentNotValidException into a list of FieldErrors.
+     * Transforms binding errors from a validation exception into a list of FieldErrors.
      *
-     * @param ex the exception containing binding result errors
+     * @param bindingResult the binding result of the exception
      * @return a list of FieldErrors
      */
-    private List<FieldError> getErrors(MethodArgumentNotValidException ex) {
-        return ex.getBindingResult().getAllErrors().stream()
+    private List<FieldError> getErrors(BindingResult bindingResult) {
+        return bindingResult.getAllErrors().stream()
                 .filter(e -> e instanceof org.springframework.validation.FieldError)
                 .map(e -> {
                     org.springframework.validation.FieldError fe = (org.springframework.validation.FieldError) e;
@@ -3,6 +3,8 @@ package com.example.s3integration.exception.constants;
 public final class StorageErrorConstants {
 
     public static final Code STORAGE_ERR001 = new Code("STORAGE_ERR001", "Storage Service operation failed");
+    public static final Code STORAGE_ERR002 = new Code("STORAGE_ERR002", "Upload queue is full, retry later");
+    public static final Code STORAGE_ERR003 = new Code("STORAGE_ERR003", "Server is busy, retry later");
 
     public record Code(String code, String message) {
     }
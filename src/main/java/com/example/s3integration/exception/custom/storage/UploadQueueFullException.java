@@ -0,0 +1,17 @@
+package com.example.s3integration.exception.custom.storage;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class UploadQueueFullException extends RuntimeException {
+
+    // How long the client should wait before it retries
+    private final Duration retryAfter;
+
+    public UploadQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -2,23 +2,32 @@ package com.example.s3integration.exception.handler;
 
 import com.example.s3integration.exception.constants.StorageErrorConstants;
 import com.example.s3integration.exception.custom.storage.StorageServiceException;
+import com.example.s3integration.exception.custom.storage.UploadQueueFullException;
 import com.example.s3integration.model.core.exception.ApiError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
 @ControllerAdvice
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class StorageExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(StorageExceptionHandler.class);
 
+    // Queued tasks finish within seconds, so a client rejected by a full executor queue retries soon
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(1);
+
     /**
      * Handle StorageService errors.
      */
@@ -29,4 +38,26 @@ public class StorageExceptionHandler {
         logger.error("Storage Service operation failed: {}", ex.getMessage(), ex);
         return new ApiError(StorageErrorConstants.STORAGE_ERR001.code(), StorageErrorConstants.STORAGE_ERR001.message(), null);
     }
+
+    /**
+     * Handle uploads rejected because the upload job queue is full.
+     */
+    @ExceptionHandler(UploadQueueFullException.class)
+    public ResponseEntity<ApiError> handleUploadQueueFullException(UploadQueueFullException ex) {
+        logger.warn("Upload rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(new ApiError(StorageErrorConstants.STORAGE_ERR002.code(), StorageErrorConstants.STORAGE_ERR002.message(), null));
+    }
+
+    /**
+     * Handle tasks rejected because the queue of the application task executor is full.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiError> handleRejectedExecutionException(RejectedExecutionException ex) {
+        logger.warn("Task rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(BUSY_RETRY_AFTER.toSeconds()))
+                .body(new ApiError(StorageErrorConstants.STORAGE_ERR003.code(), StorageErrorConstants.STORAGE_ERR003.message(), null));
+    }
 }
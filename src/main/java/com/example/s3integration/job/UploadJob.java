@@ -0,0 +1,41 @@
+package com.example.s3integration.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An accepted upload stored in the background. Next to its spooled content, every unfinished or failed job is
+ * written to the spool directory as JSON, so that it can be resumed or retried after a restart.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadJob {
+
+    private String fileKey;
+    private String filePath;
+    private String originalFileName;
+    private String contentType;
+    private String contentEncoding;
+    // Size of the original content, the spooled content is compressed if an encoding is set
+    private Long decodedContentLength;
+    private String contentHash;
+    private Status status;
+    // Number of attempts made so far, a failed attempt is retried until the configured maximum is reached
+    private int attempts;
+    private String error;
+    private Instant createdAt;
+    private Instant finishedAt;
+
+    public enum Status {
+        // Waiting for a worker, also between the attempts of a retried job
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        // All attempts failed; the job is kept until it is retried
+        FAILED
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.s3integration.job;
+
+import com.example.s3integration.model.http.response.storage.UploadJobResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+public interface UploadJobService {
+
+    /**
+     * Spools an uploaded file and queues its transfer to the storage.
+     *
+     * @param file the file to upload
+     * @param onFinished run once when the job is stored or has failed all its attempts, or right away if it is not accepted
+     * @return the status of the queued job, including the generated key of the file
+     * @throws com.example.s3integration.exception.custom.storage.UploadQueueFullException if no more jobs are accepted
+     */
+    UploadJobResponse submit(MultipartFile file, Runnable onFinished);
+
+    /**
+     * Spools a file stream and queues its transfer to the storage.
+     *
+     * @param inputStream the content of the file
+     * @param fileName the name of the file
+     * @param onFinished run once when the job is stored or has failed all its attempts, or right away if it is not accepted
+     * @return the status of the queued job, including the generated key of the file
+     * @throws com.example.s3integration.exception.custom.storage.UploadQueueFullException if no more jobs are accepted
+     */
+    UploadJobResponse submit(InputStream inputStream, String fileName, Runnable onFinished);
+
+    /**
+     * Looks up the status of a job.
+     *
+     * @param fileKey the key of the file the job uploads
+     * @return the status of the job; a stored file without a known job is reported as completed
+     */
+    Optional<UploadJobResponse> getJob(String fileKey);
+
+    /**
+     * Queues a job that failed all its attempts again, with a fresh set of attempts.
+     *
+     * @param fileKey the key of the file the job uploads
+     * @return the status of the queued job, or empty if there is no failed job with this key
+     * @throws com.example.s3integration.exception.custom.storage.UploadQueueFullException if no more jobs are accepted
+     */
+    Optional<UploadJobResponse> retry(String fileKey);
+}
@@ -0,0 +1,438 @@
+package com.example.s3integration.job;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.exception.custom.storage.StorageServiceException;
+import com.example.s3integration.exception.custom.storage.UploadQueueFullException;
+import com.example.s3integration.metrics.StorageMetrics;
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+import com.example.s3integration.model.http.response.storage.UploadJobResponse;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.service.FileStorageService;
+import com.example.s3integration.service.SpooledUpload;
+import com.example.s3integration.util.FileUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Accepts uploads as soon as they are spooled and transfers them to the storage on a fixed number of workers.
+ *
+ * Admission is bounded by the number of pending jobs (running, waiting for a worker or for their next attempt);
+ * beyond it uploads are rejected before they are spooled into the job directory, so a slow storage pushes back
+ * on the clients instead of filling the disk. A streamed upload is rejected before its body is read, while a
+ * multipart upload has already been received by then; the upload admission filter rejects both earlier.
+ *
+ * The spooled content and a JSON manifest of every job are kept in the spool directory until it is stored.
+ * A failed attempt is retried with exponential backoff; a job that fails all its attempts is kept as FAILED until
+ * it is retried explicitly. Unfinished jobs found there on startup are resumed, failed ones are kept.
+ */
+@Service
+@ConditionalOnProperty(prefix = "spring-boot-s3-example.storage.upload-jobs", name = "enabled", havingValue = "true")
+public class UploadJobServiceImpl implements UploadJobService, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobServiceImpl.class);
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String MANIFEST_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final FileStorageService fileStorageService;
+    private final FileStorageRepository fileStorageRepository;
+    private final FileUtils fileUtils;
+    private final StorageMetrics storageMetrics;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final StorageConfigProperties.UploadJobs uploadJobs;
+    private final Path directory;
+    private final Map<String, UploadJob> activeJobs = new ConcurrentHashMap<>();
+    // Callbacks run once the job is stored or has failed, e.g. to release its admission permit
+    private final Map<String, Runnable> finishCallbacks = new ConcurrentHashMap<>();
+    // Jobs that failed all their attempts, kept with their content until they are retried
+    private final Map<String, UploadJob> failedJobs = new ConcurrentHashMap<>();
+    private final Cache<String, UploadJob> finishedJobs;
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean stopping;
+
+    public UploadJobServiceImpl(FileStorageService fileStorageService, FileStorageRepository fileStorageRepository, FileUtils fileUtils,
+                                StorageMetrics storageMetrics, ObjectMapper objectMapper, Environment environment,
+                                StorageConfigProperties storageConfigProperties, MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.fileStorageRepository = fileStorageRepository;
+        this.fileUtils = fileUtils;
+        this.storageMetrics = storageMetrics;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.uploadJobs = storageConfigProperties.getUploadJobs();
+        this.directory = Path.of(uploadJobs.getDirectory());
+        this.finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(uploadJobs.getStatusRetention())
+                .build();
+        Gauge.builder("storage.upload.jobs.pending", pendingJobs, AtomicInteger::get)
+                .description("Upload jobs running or waiting for a worker").register(meterRegistry);
+    }
+
+    // Spools an uploaded file and queues it
+    @Override
+    public UploadJobResponse submit(MultipartFile file, Runnable onFinished) {
+        return submit(() -> fileStorageService.spoolFile(file), onFinished);
+    }
+
+    // Spools a file stream and queues it
+    @Override
+    public UploadJobResponse submit(InputStream inputStream, String fileName, Runnable onFinished) {
+        return submit(() -> fileStorageService.spoolFileStream(inputStream, fileName), onFinished);
+    }
+
+    // Returns the active, failed or recently finished job, or a completed one for a stored file
+    @Override
+    public Optional<UploadJobResponse> getJob(String fileKey) {
+        UploadJob job = activeJobs.get(fileKey);
+        if (job == null) {
+            job = failedJobs.get(fileKey);
+        }
+        if (job == null) {
+            job = finishedJobs.getIfPresent(fileKey);
+        }
+        if (job != null) {
+            return Optional.of(toResponse(job));
+        }
+        // The status of the job has expired or the file was stored another way
+        return fileStorageRepository.findByFileKey(fileKey)
+                .map(fileStorage -> new UploadJobResponse(fileKey, UploadJob.Status.COMPLETED, 0, fileStorage.getOriginalFileName(), null, null, null));
+    }
+
+    // Queues a failed job again with a fresh set of attempts
+    @Override
+    public Optional<UploadJobResponse> retry(String fileKey) {
+        UploadJob job = failedJobs.remove(fileKey);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (stopping || pendingJobs.incrementAndGet() > uploadJobs.getWorkers() + uploadJobs.getQueueCapacity()) {
+            pendingJobs.decrementAndGet();
+            failedJobs.put(fileKey, job);
+            throw new UploadQueueFullException("Upload queue is full", uploadJobs.getRetryAfter());
+        }
+        job.setStatus(UploadJob.Status.QUEUED);
+        job.setAttempts(0);
+        job.setError(null);
+        job.setFinishedAt(null);
+        saveManifest(job);
+        UploadJobResponse response = toResponse(job);
+        activeJobs.put(fileKey, job);
+        executor.execute(() -> run(job));
+        logger.info("Queued failed upload job again for key: {}", fileKey);
+        return Optional.of(response);
+    }
+
+    @Override
+    public void start() {
+        stopping = false;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new StorageServiceException("Failed to create upload job directory: " + directory, e);
+        }
+        ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(uploadJobs.getWorkers(), Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("upload-job-", 1).factory()
+                : new CustomizableThreadFactory("upload-job-"));
+        // Retries waiting for their delay are dropped on shutdown, their jobs are resumed on the next start
+        scheduledExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor = scheduledExecutor;
+        recoverJobs();
+    }
+
+    @Override
+    public void stop() {
+        // Queued jobs are left in the spool directory and resumed on the next start
+        stopping = true;
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Upload jobs still running after {} seconds, they are resumed on the next start", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    // Starts before the web server accepts requests and stops after it has finished them
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    // Reserves a slot, spools the upload into the spool directory and hands it to a worker
+    private UploadJobResponse submit(Supplier<SpooledUpload> spool, Runnable onFinished) {
+        if (stopping || pendingJobs.incrementAndGet() > uploadJobs.getWorkers() + uploadJobs.getQueueCapacity()) {
+            pendingJobs.decrementAndGet();
+            onFinished.run();
+            throw new UploadQueueFullException("Upload queue is full", uploadJobs.getRetryAfter());
+        }
+        File spooledFile = null;
+        String fileKey = null;
+        try {
+            SpooledUpload upload = spool.get();
+            spooledFile = upload.file();
+            FileCreateRequest request = upload.request();
+            fileKey = request.getFileKey();
+            UploadJob job = new UploadJob(request.getFileKey(), request.getFilePath(), request.getOriginalFileName(), request.getContentType(),
+                    request.getContentEncoding(), request.getDecodedContentLength(), upload.contentHash(), UploadJob.Status.QUEUED, 0, null, Instant.now(), null);
+            // The content is moved before the manifest is written, a manifest always has its content next to it
+            Path dataFile = dataFile(job.getFileKey());
+            Files.move(spooledFile.toPath(), dataFile, StandardCopyOption.REPLACE_EXISTING);
+            spooledFile = dataFile.toFile();
+            writeManifest(job);
+            // The response is taken before a worker can change the job
+            UploadJobResponse response = toResponse(job);
+            finishCallbacks.put(job.getFileKey(), onFinished);
+            activeJobs.put(job.getFileKey(), job);
+            executor.execute(() -> run(job));
+            logger.info("Queued upload job for file '{}' with key: {}", job.getOriginalFileName(), job.getFileKey());
+            return response;
+        } catch (Exception e) {
+            pendingJobs.decrementAndGet();
+            if (fileKey != null) {
+                activeJobs.remove(fileKey);
+                finishCallbacks.remove(fileKey);
+            }
+            onFinished.run();
+            if (spooledFile != null) {
+                deleteJobFiles(spooledFile);
+            }
+            if (e instanceof StorageServiceException storageServiceException) {
+                throw storageServiceException;
+            }
+            throw new StorageServiceException("Failed to queue upload job", e);
+        }
+    }
+
+    // Uploads the spooled content of a job and records its outcome; the files of the job are only deleted once
+    // it is stored, a failed attempt keeps them for the next one
+    private void run(UploadJob job) {
+        if (stopping) {
+            return;
+        }
+        Path dataFile = dataFile(job.getFileKey());
+        try {
+            job.setStatus(UploadJob.Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            FileCreateRequest request = new FileCreateRequest(job.getFileKey(), job.getFilePath());
+            request.setOriginalFileName(job.getOriginalFileName());
+            request.setContentType(job.getContentType());
+            request.setContentEncoding(job.getContentEncoding());
+            request.setDecodedContentLength(job.getDecodedContentLength());
+            request.setContentLength(Files.size(dataFile));
+            fileStorageService.storeSpooledFile(new SpooledUpload(request, dataFile.toFile(), job.getContentHash()));
+        } catch (Exception e) {
+            handleFailure(job, e);
+            return;
+        }
+        complete(job);
+        deleteJobFiles(dataFile.toFile());
+        pendingJobs.decrementAndGet();
+        runFinishCallback(job);
+    }
+
+    // Schedules the next attempt of a failed job, or marks it as failed once it has no attempts left
+    private void handleFailure(UploadJob job, Exception e) {
+        job.setError(e.getMessage());
+        if (job.getAttempts() < uploadJobs.getMaxAttempts()) {
+            Duration backoff = retryBackoff(job.getAttempts());
+            logger.warn("Upload job for key '{}' failed on attempt {} of {}, retrying in {}",
+                    job.getFileKey(), job.getAttempts(), uploadJobs.getMaxAttempts(), backoff, e);
+            job.setStatus(UploadJob.Status.QUEUED);
+            saveManifest(job);
+            try {
+                executor.schedule(() -> run(job), backoff.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                // Shutting down, the job is resumed from its manifest on the next start
+                logger.info("Upload job for key '{}' is retried after the restart", job.getFileKey());
+            }
+            return;
+        }
+        logger.error("Upload job for key '{}' failed after {} attempts, keeping it for a retry", job.getFileKey(), job.getAttempts(), e);
+        job.setStatus(UploadJob.Status.FAILED);
+        job.setFinishedAt(Instant.now());
+        saveManifest(job);
+        failedJobs.put(job.getFileKey(), job);
+        activeJobs.remove(job.getFileKey());
+        pendingJobs.decrementAndGet();
+        runFinishCallback(job);
+    }
+
+    // Moves a stored job from the active jobs to the finished ones
+    private void complete(UploadJob job) {
+        job.setStatus(UploadJob.Status.COMPLETED);
+        job.setError(null);
+        job.setFinishedAt(Instant.now());
+        finishedJobs.put(job.getFileKey(), job);
+        activeJobs.remove(job.getFileKey());
+    }
+
+    private void runFinishCallback(UploadJob job) {
+        Runnable callback = finishCallbacks.remove(job.getFileKey());
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    // Delay before the attempt following the given one
+    private Duration retryBackoff(int attempts) {
+        Duration backoff = uploadJobs.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(uploadJobs.getMaxRetryBackoff()) > 0 ? uploadJobs.getMaxRetryBackoff() : backoff;
+    }
+
+    // Resumes the unfinished jobs left in the spool directory by the previous run, keeps the failed ones and
+    // removes everything else
+    private void recoverJobs() {
+        int resumed = 0;
+        try (DirectoryStream<Path> manifests = Files.newDirectoryStream(directory, "*" + MANIFEST_SUFFIX)) {
+            for (Path manifest : manifests) {
+                UploadJob job = readManifest(manifest);
+                if (job == null) {
+                    continue;
+                }
+                Path dataFile = dataFile(job.getFileKey());
+                if (!Files.exists(dataFile)) {
+                    // The job was finished, only its manifest was left behind
+                    Files.deleteIfExists(manifest);
+                } else if (fileStorageRepository.findByFileKey(job.getFileKey()).isPresent()) {
+                    // The file was stored before the previous run stopped, only the cleanup is missing
+                    storageMetrics.spooled(Files.size(dataFile));
+                    complete(job);
+                    deleteJobFiles(dataFile.toFile());
+                } else if (job.getStatus() == UploadJob.Status.FAILED) {
+                    storageMetrics.spooled(Files.size(dataFile));
+                    failedJobs.put(job.getFileKey(), job);
+                } else {
+                    storageMetrics.spooled(Files.size(dataFile));
+                    job.setStatus(UploadJob.Status.QUEUED);
+                    pendingJobs.incrementAndGet();
+                    activeJobs.put(job.getFileKey(), job);
+                    executor.execute(() -> run(job));
+                    resumed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageServiceException("Failed to recover upload jobs from: " + directory, e);
+        }
+        // Content without a manifest and unfinished manifests were never accepted
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean stray = name.endsWith(TEMP_SUFFIX)
+                        || (name.endsWith(DATA_SUFFIX) && !isKnownJob(name.substring(0, name.length() - DATA_SUFFIX.length())));
+                if (stray) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean up upload job directory: {}", directory, e);
+        }
+        if (resumed > 0) {
+            logger.info("Resumed {} unfinished upload jobs from: {}", resumed, directory);
+        }
+    }
+
+    // Writes the manifest next to a temporary name first, so that a crash never leaves a partial one
+    private void writeManifest(UploadJob job) throws IOException {
+        Path manifest = manifestFile(job.getFileKey());
+        Path tempFile = directory.resolve(job.getFileKey() + MANIFEST_SUFFIX + TEMP_SUFFIX);
+        objectMapper.writeValue(tempFile.toFile(), job);
+        Files.move(tempFile, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Records the state of a job that keeps its files, a job whose manifest cannot be written is still resumed
+    // from its previous manifest
+    private void saveManifest(UploadJob job) {
+        try {
+            writeManifest(job);
+        } catch (IOException e) {
+            logger.warn("Failed to update upload job manifest for key: {}", job.getFileKey(), e);
+        }
+    }
+
+    private UploadJob readManifest(Path manifest) {
+        try {
+            return objectMapper.readValue(manifest.toFile(), UploadJob.class);
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable upload job manifest: {}", manifest, e);
+            return null;
+        }
+    }
+
+    // Deletes the content before the manifest, a manifest without content is discarded on recovery
+    private void deleteJobFiles(File dataFile) {
+        String fileName = dataFile.getName();
+        String fileKey = fileName.endsWith(DATA_SUFFIX) ? fileName.substring(0, fileName.length() - DATA_SUFFIX.length()) : null;
+        if (!fileUtils.deleteTempFile(dataFile)) {
+            logger.warn("Failed to delete spooled upload: {}", dataFile);
+        }
+        if (fileKey != null) {
+            try {
+                Files.deleteIfExists(manifestFile(fileKey));
+            } catch (IOException e) {
+                logger.warn("Failed to delete upload job manifest for key: {}", fileKey, e);
+            }
+        }
+    }
+
+    private boolean isKnownJob(String fileKey) {
+        return activeJobs.containsKey(fileKey) || failedJobs.containsKey(fileKey);
+    }
+
+    private Path dataFile(String fileKey) {
+        return directory.resolve(fileKey + DATA_SUFFIX);
+    }
+
+    private Path manifestFile(String fileKey) {
+        return directory.resolve(fileKey + MANIFEST_SUFFIX);
+    }
+
+    private static UploadJobResponse toResponse(UploadJob job) {
+        return new UploadJobResponse(job.getFileKey(), job.getStatus(), job.getAttempts(), job.getOriginalFileName(), job.getError(), job.getCreatedAt(), job.getFinishedAt());
+    }
+}
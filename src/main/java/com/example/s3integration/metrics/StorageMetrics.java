@@ -0,0 +1,143 @@
+package com.example.s3integration.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the storage hot paths, published through Actuator and Prometheus.
+ *
+ * {@code storage.operation} times a whole storage operation as seen by the caller. Its parts are timed where they
+ * happen: local disk work by {@code storage.disk}, S3 calls by {@code s3.api.call} (recorded from the SDK metrics
+ * of the S3 clients) and database calls by {@code spring.data.repository.invocations}. Comparing them shows where
+ * the latency of an operation goes.
+ */
+@Component
+public class StorageMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String UPLOAD_STREAM = "upload_stream";
+    public static final String UPLOAD_BATCH = "upload_batch";
+    public static final String UPLOAD_COMPLETE = "upload_complete";
+    public static final String UPLOAD_JOB = "upload_job";
+    public static final String DOWNLOAD = "download";
+    public static final String DOWNLOAD_RANGE = "download_range";
+    public static final String METADATA = "metadata";
+    public static final String LIST = "list";
+    public static final String DELETE = "delete";
+    public static final String DELETE_BULK = "delete_bulk";
+    public static final String COPY = "copy";
+    public static final String COPY_BULK = "copy_bulk";
+
+    public static final String DISK_SPOOL = "spool";
+    public static final String DISK_DELETE = "delete";
+
+    private final MeterRegistry meterRegistry;
+    private final Meter.MeterProvider<Timer> operationTimers;
+    private final Meter.MeterProvider<Timer> diskTimers;
+    private final Counter uploadedBytes;
+    private final Counter downloadedBytes;
+    private final Counter deduplicatedBytes;
+    private final Counter compressionSavedBytes;
+    private final AtomicLong spoolBytes = new AtomicLong();
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+
+    public StorageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.operationTimers = Timer.builder("storage.operation")
+                .description("Duration of storage operations")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .withRegistry(meterRegistry);
+        this.diskTimers = Timer.builder("storage.disk")
+                .description("Time spent on the local disk, e.g. spooling uploads to temporary files")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .withRegistry(meterRegistry);
+        this.uploadedBytes = Counter.builder("storage.transfer.bytes").tag("direction", "upload").baseUnit("bytes")
+                .description("Bytes transferred by storage operations").register(meterRegistry);
+        this.downloadedBytes = Counter.builder("storage.transfer.bytes").tag("direction", "download").baseUnit("bytes")
+                .description("Bytes transferred by storage operations").register(meterRegistry);
+        this.deduplicatedBytes = Counter.builder("storage.deduplicated.bytes").baseUnit("bytes")
+                .description("Bytes of uploads that were not stored again because the same content was already stored").register(meterRegistry);
+        this.compressionSavedBytes = Counter.builder("storage.compression.saved.bytes").baseUnit("bytes")
+                .description("Bytes of uploads that were not stored because the content was compressed").register(meterRegistry);
+        Gauge.builder("storage.spool.bytes", spoolBytes, AtomicLong::get).baseUnit("bytes")
+                .description("Bytes held in temporary files of uploads in progress").register(meterRegistry);
+        Gauge.builder("storage.uploads.in.flight", inFlightUploads, AtomicInteger::get)
+                .description("Uploads currently in progress").register(meterRegistry);
+    }
+
+    /**
+     * Starts timing an operation or a part of it.
+     *
+     * @return the sample to stop once the work is done
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the duration of a storage operation.
+     *
+     * @param sample the sample started when the operation began
+     * @param operation the name of the operation, one of the operation constants of this class
+     * @param succeeded whether the operation succeeded
+     */
+    public void recordOperation(Timer.Sample sample, String operation, boolean succeeded) {
+        sample.stop(operationTimers.withTags("operation", operation, "outcome", succeeded ? "success" : "error"));
+    }
+
+    /**
+     * Records the time spent on the local disk.
+     *
+     * @param sample the sample started when the disk work began
+     * @param operation the kind of disk work, one of the disk constants of this class
+     */
+    public void recordDisk(Timer.Sample sample, String operation) {
+        sample.stop(diskTimers.withTags("operation", operation));
+    }
+
+    public void recordUploadedBytes(long bytes) {
+        uploadedBytes.increment(bytes);
+    }
+
+    public void recordDownloadedBytes(long bytes) {
+        downloadedBytes.increment(bytes);
+    }
+
+    public void recordDeduplicatedBytes(long bytes) {
+        deduplicatedBytes.increment(bytes);
+    }
+
+    public void recordCompressedBytes(long originalBytes, long storedBytes) {
+        // Incompressible content can grow slightly, which is not counted against the savings
+        compressionSavedBytes.increment(Math.max(0, originalBytes - storedBytes));
+    }
+
+    // Temporary files are counted from when they are written until they are deleted
+    public void spooled(long bytes) {
+        spoolBytes.addAndGet(bytes);
+    }
+
+    public void unspooled(long bytes) {
+        spoolBytes.addAndGet(-bytes);
+    }
+
+    public void uploadStarted() {
+        inFlightUploads.incrementAndGet();
+    }
+
+    public void uploadFinished() {
+        inFlightUploads.decrementAndGet();
+    }
+}
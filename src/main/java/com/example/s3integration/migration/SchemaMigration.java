@@ -0,0 +1,160 @@
+package com.example.s3integration.migration;
+
+import com.example.s3integration.model.entity.FileStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings a database created by an earlier version of the application up to date before Hibernate validates or
+ * updates the schema; the entity manager factory depends on this bean (see {@link SchemaMigrationConfig}).
+ *
+ * {@code ddl-auto: update} only adds what is missing, and {@code validate} changes nothing, so the columns, tables,
+ * sequences and indexes added since the first version are created here for databases running with {@code validate},
+ * together with the steps that depend on existing rows. Every step checks the current state first and does nothing
+ * on a fresh or an already migrated database. The definitions match the DDL Hibernate generates for H2.
+ */
+@Component(SchemaMigration.BEAN_NAME)
+public class SchemaMigration implements InitializingBean {
+
+    public static final String BEAN_NAME = "schemaMigration";
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigration.class);
+
+    // Must match the allocation size of the file_storage_seq generator on FileStorage
+    private static final int FILE_STORAGE_ALLOCATION_SIZE = 50;
+
+    // Columns of file_storage added since the first version, by name
+    private static final Map<String, String> FILE_STORAGE_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        FILE_STORAGE_COLUMNS.put("ORIGINAL_FILE_NAME", "character varying(255)");
+        FILE_STORAGE_COLUMNS.put("CONTENT_LENGTH", "bigint");
+        FILE_STORAGE_COLUMNS.put("CONTENT_TYPE", "character varying(255)");
+        FILE_STORAGE_COLUMNS.put("ETAG", "character varying(255)");
+        FILE_STORAGE_COLUMNS.put("LAST_MODIFIED", "timestamp(6) with time zone");
+        FILE_STORAGE_COLUMNS.put("CONTENT_HASH", "character varying(64)");
+        FILE_STORAGE_COLUMNS.put("CONTENT_ENCODING", "character varying(32)");
+        FILE_STORAGE_COLUMNS.put("DECODED_CONTENT_LENGTH", "bigint");
+        FILE_STORAGE_COLUMNS.put("DELETED_AT", "timestamp(6) with time zone");
+    }
+
+    // Indexes of file_storage added since the first version, as declared on FileStorage
+    private static final Map<String, String> FILE_STORAGE_INDEXES = Map.of(
+            "idx_file_storage_file_path", "file_path",
+            "idx_file_storage_created_at_id", "created_at, id",
+            "idx_file_storage_content_type_created_at_id", "content_type, created_at, id",
+            "idx_file_storage_original_file_name", "original_file_name",
+            "idx_file_storage_deleted_at", "deleted_at");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!tableExists("FILE_STORAGE")) {
+            return;
+        }
+        addFileStorageColumns();
+        migrateFileStorageSequence();
+        dropFilePathUniqueConstraint();
+        createFileStorageIndexes();
+        createStoredObjectTable();
+    }
+
+    private void addFileStorageColumns() {
+        Set<String> columns = new HashSet<>(jdbcTemplate.queryForList("select column_name from information_schema.columns where table_schema = schema() and table_name = 'FILE_STORAGE'", String.class));
+        FILE_STORAGE_COLUMNS.forEach((column, type) -> {
+            if (!columns.contains(column)) {
+                jdbcTemplate.execute("alter table file_storage add column " + column.toLowerCase() + " " + type);
+                logger.info("Added column file_storage.{}", column.toLowerCase());
+            }
+        });
+    }
+
+    // FileStorage ids used to come from an identity column. The pooled optimizer takes a sequence value as the
+    // upper end of its block, so the sequence has to start a full block above the highest existing id; an empty
+    // table gets the sequence Hibernate would create.
+    private void migrateFileStorageSequence() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from file_storage", Long.class);
+        long startValue = maxId != null ? maxId + FILE_STORAGE_ALLOCATION_SIZE : 1;
+        Long nextValue = jdbcTemplate.queryForList("select base_value from information_schema.sequences where sequence_schema = schema() and sequence_name = 'FILE_STORAGE_SEQ'", Long.class)
+                .stream().findFirst().orElse(null);
+        if (nextValue == null) {
+            jdbcTemplate.execute("create sequence file_storage_seq start with " + startValue + " increment by " + FILE_STORAGE_ALLOCATION_SIZE);
+            logger.info("Created sequence file_storage_seq starting at {} above the existing {} ids", startValue, FileStorage.class.getSimpleName());
+        } else if (nextValue < startValue) {
+            jdbcTemplate.execute("alter sequence file_storage_seq restart with " + startValue);
+            logger.info("Restarted sequence file_storage_seq at {} above the existing {} ids", startValue, FileStorage.class.getSimpleName());
+        }
+    }
+
+    // Deduplicated files share the path of their stored object, but ddl-auto never drops the unique constraint
+    // that file_path used to have; the plain index on the column stays for the lookups by path
+    private void dropFilePathUniqueConstraint() {
+        List<String> constraintNames = jdbcTemplate.queryForList("""
+                select tc.constraint_name
+                from information_schema.table_constraints tc
+                join information_schema.key_column_usage k
+                  on k.constraint_schema = tc.constraint_schema and k.constraint_name = tc.constraint_name
+                where tc.table_schema = schema() and tc.table_name = 'FILE_STORAGE' and tc.constraint_type = 'UNIQUE'
+                group by tc.constraint_name
+                having count(*) = 1 and max(k.column_name) = 'FILE_PATH'""", String.class);
+        for (String constraintName : constraintNames) {
+            jdbcTemplate.execute("alter table file_storage drop constraint \"" + constraintName.replace("\"", "\"\"") + "\"");
+            logger.info("Dropped unique constraint {} on file_storage.file_path", constraintName);
+        }
+    }
+
+    private void createFileStorageIndexes() {
+        Set<String> indexes = new HashSet<>(jdbcTemplate.queryForList("select index_name from information_schema.indexes where table_schema = schema() and table_name = 'FILE_STORAGE'", String.class));
+        FILE_STORAGE_INDEXES.forEach((index, columns) -> {
+            if (!indexes.contains(index.toUpperCase())) {
+                jdbcTemplate.execute("create index " + index + " on file_storage (" + columns + ")");
+                logger.info("Created index {} on file_storage ({})", index, columns);
+            }
+        });
+    }
+
+    // Shared objects of deduplicated files; the table is new, so no existing rows point to it
+    private void createStoredObjectTable() {
+        if (!tableExists("STORED_OBJECT")) {
+            jdbcTemplate.execute("""
+                    create table stored_object (
+                        id bigint not null primary key,
+                        created_at timestamp(6) not null,
+                        updated_at timestamp(6),
+                        content_encoding character varying(32),
+                        content_hash character varying(64) not null unique,
+                        content_length bigint,
+                        decoded_content_length bigint,
+                        etag character varying(255),
+                        file_path character varying(255) not null unique,
+                        reference_count bigint not null
+                    )""");
+            logger.info("Created table stored_object");
+        }
+        Integer sequences = jdbcTemplate.queryForObject("select count(*) from information_schema.sequences where sequence_schema = schema() and sequence_name = 'STORED_OBJECT_SEQ'", Integer.class);
+        if (sequences == null || sequences == 0) {
+            jdbcTemplate.execute("create sequence stored_object_seq start with 1 increment by 50");
+            logger.info("Created sequence stored_object_seq");
+        }
+    }
+
+    private boolean tableExists(String tableName) {
+        Integer tables = jdbcTemplate.queryForObject("select count(*) from information_schema.tables where table_schema = schema() and table_name = ?", Integer.class, tableName);
+        return tables != null && tables > 0;
+    }
+}
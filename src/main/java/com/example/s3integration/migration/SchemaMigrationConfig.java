@@ -0,0 +1,16 @@
+package com.example.s3integration.migration;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    // Runs the schema migration before Hibernate inspects the schema, the same way Boot orders Flyway
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigrationDependsOnPostProcessor() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigration.BEAN_NAME) {
+        };
+    }
+}
@@ -4,15 +4,30 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
 
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "file_storage")
+// Indexes serve the file listing, which filters by these columns and pages through results ordered by (created_at, id),
+// and the lookups by path; paths are not unique, as deduplicated files share the object of their content.
+// Deleted rows are hidden from every query until the tombstone collector removes them with their objects
+@SQLRestriction("deleted_at is null")
+@Table(name = "file_storage", indexes = {
+        @Index(name = "idx_file_storage_file_path", columnList = "file_path"),
+        @Index(name = "idx_file_storage_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_file_storage_content_type_created_at_id", columnList = "content_type, created_at, id"),
+        @Index(name = "idx_file_storage_original_file_name", columnList = "original_file_name"),
+        @Index(name = "idx_file_storage_deleted_at", columnList = "deleted_at")
+})
 public class FileStorage extends BaseEntity {
 
+    // A pooled sequence hands out ids without a round-trip per insert, which lets Hibernate batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_storage_seq")
+    @SequenceGenerator(name = "file_storage_seq", sequenceName = "file_storage_seq", allocationSize = 50)
     private Long id;
 
     @Size(max = 255)
@@ -20,6 +35,44 @@ public class FileStorage extends BaseEntity {
     private String fileKey;
 
     @Size(max = 255)
-    @Column(name = "file_path", nullable = false, unique = true)
+    @Column(name = "file_path", nullable = false)
     private String filePath;
+
+    // Name of the file as uploaded by the client, without directories
+    @Size(max = 255)
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    // Size of the stored object, which is the compressed size if the file has a content encoding
+    @Column(name = "content_length")
+    private Long contentLength;
+
+    @Size(max = 255)
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Size(max = 255)
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    // SHA-256 digest of the content if the file points to a deduplicated stored object, null otherwise
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Compression of the stored object, e.g. 'gzip', null if the original content is stored
+    @Size(max = 32)
+    @Column(name = "content_encoding", length = 32)
+    private String contentEncoding;
+
+    // Size of the original content if the file has a content encoding, null otherwise
+    @Column(name = "decoded_content_length")
+    private Long decodedContentLength;
+
+    // Time the file was deleted in tombstone mode, null for live files
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
 }
@@ -0,0 +1,52 @@
+package com.example.s3integration.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * An object in the bucket shared by all files with the same content, when deduplication is enabled.
+ * File rows point to it by their content hash; the object is deleted with the last of them.
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@Entity
+@Table(name = "stored_object")
+public class StoredObject extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stored_object_seq")
+    @SequenceGenerator(name = "stored_object_seq", sequenceName = "stored_object_seq", allocationSize = 50)
+    private Long id;
+
+    // Hex encoded SHA-256 digest of the content
+    @Size(max = 64)
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Size(max = 255)
+    @Column(name = "file_path", nullable = false, unique = true)
+    private String filePath;
+
+    @Column(name = "content_length")
+    private Long contentLength;
+
+    @Size(max = 255)
+    @Column(name = "etag")
+    private String etag;
+
+    // Compression of the object, shared by all files pointing to it
+    @Size(max = 32)
+    @Column(name = "content_encoding", length = 32)
+    private String contentEncoding;
+
+    @Column(name = "decoded_content_length")
+    private Long decodedContentLength;
+
+    // Number of file rows pointing to the object
+    @Column(name = "reference_count", nullable = false)
+    private long referenceCount;
+}
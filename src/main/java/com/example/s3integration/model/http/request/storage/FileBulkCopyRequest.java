@@ -0,0 +1,31 @@
+package com.example.s3integration.model.http.request.storage;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FileBulkCopyRequest {
+
+    @Size(max = 10_000)
+    private List<String> keys;
+
+    // Copies every file whose path starts with this prefix, e.g. "storage/20250312/"
+    private String sourcePrefix;
+
+    // Continues a copy by prefix after the files copied so far, taken from the nextCursor of the previous response
+    @Pattern(regexp = "\\d{1,18}", message = "invalid cursor")
+    private String cursor;
+
+    @NotNull
+    private String targetDirectory;
+
+    @AssertTrue(message = "exactly one of keys or sourcePrefix must be given")
+    public boolean isSourceGiven() {
+        return (keys != null && !keys.isEmpty()) != (sourcePrefix != null && !sourcePrefix.isBlank());
+    }
+}
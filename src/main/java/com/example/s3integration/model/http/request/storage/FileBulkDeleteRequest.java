@@ -0,0 +1,15 @@
+package com.example.s3integration.model.http.request.storage;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FileBulkDeleteRequest {
+
+    @NotEmpty
+    @Size(max = 10_000)
+    private List<String> keys;
+}
@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.time.Instant;
+
 @Data
 @AllArgsConstructor
 public class FileCreateRequest {
@@ -13,4 +15,18 @@ public class FileCreateRequest {
 
     @NotNull
     private String filePath;
+
+    private String originalFileName;
+    private Long contentLength;
+    private String contentType;
+    private String etag;
+    private Instant lastModified;
+    private String contentHash;
+    private String contentEncoding;
+    private Long decodedContentLength;
+
+    public FileCreateRequest(String fileKey, String filePath) {
+        this.fileKey = fileKey;
+        this.filePath = filePath;
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.s3integration.model.http.request.storage;
+
+import com.example.s3integration.repository.FileListCursor;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+public class FileSearchRequest {
+
+    // Files whose original name starts with this value
+    private String name;
+
+    // Exact content type, e.g. "application/pdf", or a whole type, e.g. "image/*"
+    private String contentType;
+
+    // Files created at or after this time
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    // Files created before this time
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    // The next cursor of the previous page; the first page is returned without it
+    private String cursor;
+
+    @Min(1)
+    @Max(10_000)
+    private int limit = 1000;
+
+    @AssertTrue(message = "cursor is not valid")
+    public boolean isCursorValid() {
+        if (cursor == null || cursor.isBlank()) {
+            return true;
+        }
+        try {
+            FileListCursor.decode(cursor);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
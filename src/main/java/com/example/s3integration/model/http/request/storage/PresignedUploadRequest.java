@@ -0,0 +1,13 @@
+package com.example.s3integration.model.http.request.storage;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class PresignedUploadRequest {
+
+    @NotBlank
+    private String fileName;
+
+    private String contentType;
+}
@@ -0,0 +1,15 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FileBatchUploadResponse {
+
+    private int uploadedCount;
+    private int failedCount;
+    private List<FileUploadResult> results;
+}
@@ -0,0 +1,17 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FileBulkCopyResponse {
+
+    private int copiedCount;
+    private int failedCount;
+    private List<FileOperationResult> results;
+    // Set when a copy by prefix stopped at the configured maximum, to be sent as the cursor of the next request
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FileBulkDeleteResponse {
+
+    private int deletedCount;
+    private int failedCount;
+    private List<FileOperationResult> results;
+}
@@ -0,0 +1,15 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FileListResponse {
+
+    private List<FileMetadataResponse> files;
+    // The cursor of the next page, null on the last page
+    private String nextCursor;
+}
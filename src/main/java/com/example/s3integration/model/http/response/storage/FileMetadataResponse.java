@@ -3,10 +3,21 @@ package com.example.s3integration.model.http.response.storage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+
 @Data
 @AllArgsConstructor
 public class FileMetadataResponse {
 
     private String fileKey;
     private String filePath;
+    private String originalFileName;
+    private Long contentLength;
+    private String contentType;
+    private String etag;
+    private Instant lastModified;
+    private String contentEncoding;
+    private Long decodedContentLength;
+    private LocalDateTime createdAt;
 }
@@ -0,0 +1,13 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FileOperationResult {
+
+    private String fileKey;
+    private boolean success;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.example.s3integration.model.http.response.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class PresignedUrlResponse {
+
+    private String fileKey;
+    private String url;
+    private String method;
+    // Headers the client must send with the request, because they are part of the signature
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
@@ -0,0 +1,20 @@
+package com.example.s3integration.model.http.response.storage;
+
+import com.example.s3integration.job.UploadJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class UploadJobResponse {
+
+    private String fileKey;
+    private UploadJob.Status status;
+    private int attempts;
+    private String originalFileName;
+    private String error;
+    private Instant createdAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,41 @@
+package com.example.s3integration.reconciliation;
+
+import com.example.s3integration.config.properties.StorageConfigProperties.ReconciliationMode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ReconciliationReport {
+
+    private Status status;
+    private ReconciliationMode mode;
+    private Instant startedAt;
+    private Instant finishedAt;
+    // Directories below the configured prefixes, each compared on its own
+    private int prefixCount;
+    private int completedPrefixCount;
+    private long scannedObjects;
+    private long scannedRows;
+    // Objects without a row pointing to them
+    private long orphanObjects;
+    // Rows pointing to a missing object
+    private long danglingRows;
+    private long deletedObjects;
+    private long deletedRows;
+    private List<String> sampleOrphanObjects;
+    private List<String> sampleDanglingRows;
+    // Error message of every prefix that could not be compared
+    private Map<String, String> failedPrefixes;
+    private String error;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
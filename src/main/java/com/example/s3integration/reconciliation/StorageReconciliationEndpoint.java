@@ -0,0 +1,37 @@
+package com.example.s3integration.reconciliation;
+
+import com.example.s3integration.config.properties.StorageConfigProperties.ReconciliationMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/reconciliation}: a GET returns the report of the running or last
+ * reconciliation, a POST with an optional {@code mode} ({@code report} or {@code delete}) starts a new one.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+@RequiredArgsConstructor
+public class StorageReconciliationEndpoint {
+
+    private final StorageReconciliationService storageReconciliationService;
+
+    @ReadOperation
+    public WebEndpointResponse<ReconciliationReport> latestReport() {
+        return storageReconciliationService.getLatestReport()
+                .map(WebEndpointResponse::new)
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<ReconciliationReport> start(@Nullable ReconciliationMode mode) {
+        return storageReconciliationService.startReconciliation(mode != null ? mode : ReconciliationMode.REPORT)
+                .map(report -> new WebEndpointResponse<>(report, 202))
+                // A run is in progress, respond with its report
+                .orElseGet(() -> new WebEndpointResponse<>(storageReconciliationService.getLatestReport().orElse(null), 409));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.s3integration.reconciliation;
+
+import com.example.s3integration.config.properties.StorageConfigProperties.ReconciliationMode;
+
+import java.util.Optional;
+
+public interface StorageReconciliationService {
+
+    /**
+     * Starts comparing the objects in the bucket with the file rows in the background, unless a run is in progress.
+     * Every directory below the configured prefixes is listed page by page and merged with the rows of the same
+     * directory read in path order, so memory stays bounded by a listing page and a delete batch per directory.
+     *
+     * @param mode whether orphan objects and dangling rows are only reported or also deleted.
+     * @return the report of the started run, empty if another run is still in progress.
+     */
+    Optional<ReconciliationReport> startReconciliation(ReconciliationMode mode);
+
+    /**
+     * Compares the objects in the bucket with the file rows like {@link #startReconciliation(ReconciliationMode)},
+     * but on the calling thread.
+     *
+     * @param mode whether orphan objects and dangling rows are only reported or also deleted.
+     * @return the report of the finished run.
+     * @throws com.example.s3integration.exception.custom.storage.StorageServiceException if another run is still in progress.
+     */
+    ReconciliationReport reconcile(ReconciliationMode mode);
+
+    /**
+     * Retrieves the progress of the running reconciliation or the result of the last one.
+     *
+     * @return the report of the latest run, empty if none was started since the application started.
+     */
+    Optional<ReconciliationReport> getLatestReport();
+}
@@ -0,0 +1,441 @@
+package com.example.s3integration.reconciliation;
+
+import com.example.s3integration.cache.FileStorageCache;
+import com.example.s3integration.cache.ObjectDiskCache;
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.config.properties.StorageConfigProperties.ReconciliationMode;
+import com.example.s3integration.exception.custom.storage.StorageServiceException;
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.reconciliation.ReconciliationReport.Status;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.repository.StoredFilePath;
+import com.example.s3integration.service.S3ClientService;
+import com.example.s3integration.service.StoredObjectService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class StorageReconciliationServiceImpl implements StorageReconciliationService, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageReconciliationServiceImpl.class);
+
+    // Orphan objects or dangling rows deleted together, DeleteObjects takes at most 1000 keys
+    private static final int DELETE_BATCH_SIZE = 1000;
+    // Added to the presigned upload completion timeout, for clock skew between S3 and the application
+    private static final Duration GRACE_PERIOD_MARGIN = Duration.ofMinutes(15);
+    // A directory holds a read and a delete connection; all directories together take at most this share of the pool
+    private static final int POOL_CONNECTIONS_PER_SCOPE = 2;
+    private static final int POOL_SHARE_DIVISOR = 2;
+
+    private final S3ClientService s3ClientService;
+    private final FileStorageRepository fileStorageRepository;
+    private final StoredObjectService storedObjectService;
+    private final FileStorageCache fileStorageCache;
+    private final ObjectDiskCache objectDiskCache;
+    private final StorageConfigProperties storageConfigProperties;
+    private final int maxConcurrency;
+    private final Duration gracePeriod;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate deleteTransaction;
+    private final AtomicReference<ReconciliationRun> latestRun = new AtomicReference<>();
+
+    public StorageReconciliationServiceImpl(S3ClientService s3ClientService, FileStorageRepository fileStorageRepository,
+                                            StoredObjectService storedObjectService, FileStorageCache fileStorageCache, ObjectDiskCache objectDiskCache,
+                                            StorageConfigProperties storageConfigProperties, DataSource dataSource,
+                                            PlatformTransactionManager transactionManager) {
+        this.s3ClientService = s3ClientService;
+        this.fileStorageRepository = fileStorageRepository;
+        this.storedObjectService = storedObjectService;
+        this.fileStorageCache = fileStorageCache;
+        this.objectDiskCache = objectDiskCache;
+        this.storageConfigProperties = storageConfigProperties;
+        this.maxConcurrency = getMaxConcurrency(storageConfigProperties.getReconciliation(), dataSource);
+        this.gracePeriod = getGracePeriod(storageConfigProperties);
+        // Platform threads also with virtual threads enabled: the pool bounds the connections a run holds.
+        // One thread runs the run itself, the others its directories; a run never queues more tasks than threads.
+        this.executor = new ThreadPoolExecutor(maxConcurrency + 1, maxConcurrency + 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConcurrency + 1), new CustomizableThreadFactory("reconciliation-"));
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // Deletes commit on their own while the rows of the directory are still streamed by the read transaction
+        this.deleteTransaction = new TransactionTemplate(transactionManager);
+        this.deleteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Starts a run on the reconciliation executor unless one is in progress
+    @Override
+    public Optional<ReconciliationReport> startReconciliation(ReconciliationMode mode) {
+        ReconciliationRun run = tryStart(mode);
+        if (run == null) {
+            return Optional.empty();
+        }
+        try {
+            executor.execute(() -> execute(run));
+        } catch (RuntimeException e) {
+            run.fail(e);
+            throw new StorageServiceException("Failed to start reconciliation", e);
+        }
+        return Optional.of(run.toReport());
+    }
+
+    // Runs a reconciliation on the calling thread
+    @Override
+    public ReconciliationReport reconcile(ReconciliationMode mode) {
+        ReconciliationRun run = tryStart(mode);
+        if (run == null) {
+            throw new StorageServiceException("A reconciliation is already running");
+        }
+        execute(run);
+        return run.toReport();
+    }
+
+    // Returns the report of the running or last run
+    @Override
+    public Optional<ReconciliationReport> getLatestReport() {
+        return Optional.ofNullable(latestRun.get()).map(ReconciliationRun::toReport);
+    }
+
+    // Runs a reconciliation on the configured schedule, skipped while another run is in progress
+    @Scheduled(cron = "${spring-boot-s3-example.storage.reconciliation.cron:-}")
+    public void scheduledReconciliation() {
+        ReconciliationRun run = tryStart(storageConfigProperties.getReconciliation().getScheduledMode());
+        if (run == null) {
+            logger.warn("Skipping scheduled reconciliation, the previous run is still in progress");
+            return;
+        }
+        execute(run);
+    }
+
+    // Registers a new run, or returns null if the latest one is still running
+    private ReconciliationRun tryStart(ReconciliationMode mode) {
+        ReconciliationRun previous = latestRun.get();
+        if (previous != null && previous.status == Status.RUNNING) {
+            return null;
+        }
+        ReconciliationRun run = new ReconciliationRun(mode, storageConfigProperties.getReconciliation().getSampleSize());
+        return latestRun.compareAndSet(previous, run) ? run : null;
+    }
+
+    // Compares every directory below the configured prefixes, a bounded number of them at the same time
+    private void execute(ReconciliationRun run) {
+        StorageConfigProperties.Reconciliation reconciliation = storageConfigProperties.getReconciliation();
+        Instant cutoff = run.startedAt.minus(gracePeriod);
+        logger.info("Starting {} reconciliation of objects and rows older than {}", run.mode, cutoff);
+        try {
+            List<Scope> scopes = new ArrayList<>();
+            for (String prefix : getPrefixes()) {
+                // Files directly in the prefix, followed by one scope per directory, e.g. per shard or per day
+                scopes.add(new Scope(prefix, false));
+                // Directories only known to the database hold nothing but dangling rows
+                Set<String> directories = new TreeSet<>(s3ClientService.listDirectories(prefix));
+                directories.addAll(fileStorageRepository.findDirectories(escapeLikePattern(prefix) + "%", prefix.length() + 1));
+                directories.forEach(directory -> scopes.add(new Scope(directory, true)));
+            }
+            run.prefixCount.set(scopes.size());
+
+            Semaphore inFlightScopes = new Semaphore(maxConcurrency);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(scopes.size());
+            for (Scope scope : scopes) {
+                inFlightScopes.acquire();
+                futures.add(CompletableFuture
+                        .runAsync(() -> reconcileScope(run, scope, cutoff), executor)
+                        .whenComplete((result, throwable) -> inFlightScopes.release()));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            run.complete();
+            logger.info("Finished {} reconciliation: {} objects and {} rows scanned, {} orphan objects ({} deleted), {} dangling rows ({} deleted), {} failed prefixes",
+                    run.mode, run.scannedObjects.sum(), run.scannedRows.sum(), run.orphanObjects.sum(), run.deletedObjects.sum(),
+                    run.danglingRows.sum(), run.deletedRows.sum(), run.failedPrefixes.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+            logger.warn("Reconciliation interrupted");
+        } catch (Exception e) {
+            run.fail(e);
+            logger.error("Reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Merges the listing of a directory with its rows, both ordered by path
+    private void reconcileScope(ReconciliationRun run, Scope scope, Instant cutoff) {
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                String pattern = escapeLikePattern(scope.prefix()) + "%";
+                try (Stream<S3Object> objects = s3ClientService.listFiles(scope.prefix(), scope.recursive());
+                     Stream<StoredFilePath> rows = scope.recursive()
+                             ? fileStorageRepository.streamFilePaths(pattern)
+                             : fileStorageRepository.streamFilePaths(pattern, pattern + "/%")) {
+                    // Folder placeholder objects, e.g. created by the S3 console, are not files
+                    merge(run, objects.filter(object -> !object.key().endsWith("/")).iterator(), rows.iterator(), cutoff);
+                }
+            });
+            run.completedPrefixCount.incrementAndGet();
+            logger.debug("Reconciled prefix {}", scope.prefix());
+        } catch (Exception e) {
+            run.failedPrefixes.put(scope.prefix(), String.valueOf(e.getMessage()));
+            logger.error("Failed to reconcile prefix {}: {}", scope.prefix(), e.getMessage(), e);
+        }
+    }
+
+    // Walks both sorted sequences once; an object without a row is an orphan, a row without an object is dangling.
+    // Rows marked as deleted own their objects until the tombstone collector removes both, and are never dangling.
+    private void merge(ReconciliationRun run, Iterator<S3Object> objects, Iterator<StoredFilePath> rows, Instant cutoff) {
+        LocalDateTime rowCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        List<String> orphanObjects = new ArrayList<>();
+        List<StoredFilePath> danglingRows = new ArrayList<>();
+        S3Object object = objects.hasNext() ? objects.next() : null;
+        StoredFilePath row = nextRow(rows, null);
+        while (object != null || row != null) {
+            int comparison = object == null ? 1 : row == null ? -1 : compareKeys(object.key(), row.getFilePath());
+            if (comparison == 0) {
+                // Every row pointing to the object matches it
+                String filePath = row.getFilePath();
+                while (row != null && row.getFilePath().equals(filePath)) {
+                    run.scannedRows.increment();
+                    row = nextRow(rows, row);
+                }
+                run.scannedObjects.increment();
+                object = objects.hasNext() ? objects.next() : null;
+            } else if (comparison < 0) {
+                run.scannedObjects.increment();
+                // Younger objects may belong to an upload whose row is not saved yet
+                if (object.lastModified().isBefore(cutoff)) {
+                    run.orphanObjects.increment();
+                    run.sample(run.sampleOrphanObjects, run.orphanObjects, object.key());
+                    logger.debug("Orphan object {}", object.key());
+                    orphanObjects.add(object.key());
+                    if (orphanObjects.size() == DELETE_BATCH_SIZE) {
+                        deleteOrphanObjects(run, orphanObjects, rowCutoff);
+                    }
+                }
+                object = objects.hasNext() ? objects.next() : null;
+            } else {
+                run.scannedRows.increment();
+                if (!row.isDeleted() && row.getCreatedAt().isBefore(rowCutoff)) {
+                    run.danglingRows.increment();
+                    run.sample(run.sampleDanglingRows, run.danglingRows, row.getFileKey());
+                    logger.debug("Dangling row {} pointing to {}", row.getFileKey(), row.getFilePath());
+                    danglingRows.add(row);
+                    if (danglingRows.size() == DELETE_BATCH_SIZE) {
+                        deleteDanglingRows(run, danglingRows);
+                    }
+                }
+                row = nextRow(rows, row);
+            }
+        }
+        deleteOrphanObjects(run, orphanObjects, rowCutoff);
+        deleteDanglingRows(run, danglingRows);
+    }
+
+    // Deletes a batch of orphan objects in DELETE mode and clears it
+    private void deleteOrphanObjects(ReconciliationRun run, List<String> filePaths, LocalDateTime cutoff) {
+        if (run.mode == ReconciliationMode.DELETE && !filePaths.isEmpty()) {
+            // Skip objects that were registered since their rows were read, e.g. by a completed presigned upload
+            Set<String> registeredPaths = new HashSet<>(fileStorageRepository.findFilePathsIn(filePaths));
+            List<String> unregisteredPaths = filePaths.stream().filter(filePath -> !registeredPaths.contains(filePath)).toList();
+            // A deduplicated object may still be registered for its content, e.g. after a crash between upload and save.
+            // It is forgotten before the delete, unless a new upload of the same content acquired it since the cutoff.
+            Set<String> deletablePaths = deleteTransaction.execute(status -> storedObjectService.forgetUnused(unregisteredPaths, cutoff));
+            List<String> orphanPaths = unregisteredPaths.stream().filter(deletablePaths::contains).toList();
+            Map<String, String> failedPaths = s3ClientService.deleteFiles(orphanPaths);
+            failedPaths.forEach((filePath, error) -> logger.warn("Failed to delete orphan object {}: {}", filePath, error));
+            run.deletedObjects.add(orphanPaths.size() - failedPaths.size());
+        }
+        filePaths.clear();
+    }
+
+    // Deletes a batch of dangling rows in DELETE mode and clears it
+    private void deleteDanglingRows(ReconciliationRun run, List<StoredFilePath> storedFilePaths) {
+        if (run.mode == ReconciliationMode.DELETE && !storedFilePaths.isEmpty()) {
+            Map<Long, String> expectedPaths = storedFilePaths.stream()
+                    .collect(Collectors.toMap(StoredFilePath::getId, StoredFilePath::getFilePath));
+            List<FileStorage> deletedFiles = deleteTransaction.execute(status -> {
+                // Skip rows that were pointed to another object since they were read, e.g. by a copy
+                List<FileStorage> danglingFiles = fileStorageRepository.findAllById(expectedPaths.keySet()).stream()
+                        .filter(fileStorage -> fileStorage.getFilePath().equals(expectedPaths.get(fileStorage.getId())))
+                        .toList();
+                // Deduplicated rows also give back their references to the missing object
+                storedObjectService.delete(danglingFiles);
+                return danglingFiles;
+            });
+            deletedFiles.forEach(fileStorage -> {
+                fileStorageCache.invalidate(fileStorage.getFileKey());
+                objectDiskCache.invalidate(fileStorage.getFilePath());
+            });
+            run.deletedRows.add(deletedFiles.size());
+        }
+        storedFilePaths.clear();
+    }
+
+    // Interrupts a running run, which ends as failed
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // Prefixes to reconcile, each ending with a slash
+    private List<String> getPrefixes() {
+        List<String> prefixes = storageConfigProperties.getReconciliation().getPrefixes();
+        if (prefixes.isEmpty()) {
+            prefixes = List.of(storageConfigProperties.getMainFolder());
+        }
+        return prefixes.stream()
+                .map(prefix -> prefix.endsWith("/") ? prefix : prefix + "/")
+                .distinct()
+                .toList();
+    }
+
+    // Configured concurrency, lowered so that the directories compared at once leave most of the connection pool to requests
+    private static int getMaxConcurrency(StorageConfigProperties.Reconciliation reconciliation, DataSource dataSource) {
+        int maxConcurrency = reconciliation.getMaxConcurrency();
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            int poolLimit = Math.max(1, hikariDataSource.getMaximumPoolSize() / POOL_SHARE_DIVISOR / POOL_CONNECTIONS_PER_SCOPE);
+            if (maxConcurrency > poolLimit) {
+                logger.warn("Reconciliation max-concurrency {} lowered to {} for a connection pool of {}", maxConcurrency, poolLimit, hikariDataSource.getMaximumPoolSize());
+                maxConcurrency = poolLimit;
+            }
+        }
+        return maxConcurrency;
+    }
+
+    // Configured grace period, by default and at least the time a presigned upload may take to register its row
+    private static Duration getGracePeriod(StorageConfigProperties storageConfigProperties) {
+        Duration minimum = storageConfigProperties.getPresignedUpload().getCompletionTimeout().plus(GRACE_PERIOD_MARGIN);
+        Duration gracePeriod = storageConfigProperties.getReconciliation().getGracePeriod();
+        if (gracePeriod == null) {
+            return minimum;
+        }
+        if (gracePeriod.compareTo(minimum) < 0) {
+            logger.warn("Reconciliation grace-period {} raised to {}, the presigned upload completion timeout plus {}", gracePeriod, minimum, GRACE_PERIOD_MARGIN);
+            return minimum;
+        }
+        return gracePeriod;
+    }
+
+    // Reads the next row and fails if the database orders paths differently than S3, which would break the merge
+    private static StoredFilePath nextRow(Iterator<StoredFilePath> rows, StoredFilePath previous) {
+        if (!rows.hasNext()) {
+            return null;
+        }
+        StoredFilePath row = rows.next();
+        if (previous != null && compareKeys(previous.getFilePath(), row.getFilePath()) > 0) {
+            throw new IllegalStateException("Database returned '" + previous.getFilePath() + "' before '" + row.getFilePath()
+                    + "', the file_path column needs a binary collation to be reconciled");
+        }
+        return row;
+    }
+
+    // S3 lists keys in the order of their UTF-8 bytes, which is the order of their code points
+    private static int compareKeys(String first, String second) {
+        int firstIndex = 0;
+        int secondIndex = 0;
+        while (firstIndex < first.length() && secondIndex < second.length()) {
+            int firstCodePoint = first.codePointAt(firstIndex);
+            int secondCodePoint = second.codePointAt(secondIndex);
+            if (firstCodePoint != secondCodePoint) {
+                return Integer.compare(firstCodePoint, secondCodePoint);
+            }
+            firstIndex += Character.charCount(firstCodePoint);
+            secondIndex += Character.charCount(secondCodePoint);
+        }
+        return Integer.compare(first.length() - firstIndex, second.length() - secondIndex);
+    }
+
+    // Escapes the LIKE wildcards of a literal with a backslash
+    private static String escapeLikePattern(String literal) {
+        return literal.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // A directory compared on its own, either with the files of all its subdirectories or only its direct files
+    private record Scope(String prefix, boolean recursive) {
+    }
+
+    // Progress of a run, updated concurrently by the directories being compared
+    private static class ReconciliationRun {
+
+        private final ReconciliationMode mode;
+        private final int sampleSize;
+        private final Instant startedAt = Instant.now();
+        private volatile Status status = Status.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private final AtomicInteger prefixCount = new AtomicInteger();
+        private final AtomicInteger completedPrefixCount = new AtomicInteger();
+        private final LongAdder scannedObjects = new LongAdder();
+        private final LongAdder scannedRows = new LongAdder();
+        private final LongAdder orphanObjects = new LongAdder();
+        private final LongAdder danglingRows = new LongAdder();
+        private final LongAdder deletedObjects = new LongAdder();
+        private final LongAdder deletedRows = new LongAdder();
+        private final Queue<String> sampleOrphanObjects = new ConcurrentLinkedQueue<>();
+        private final Queue<String> sampleDanglingRows = new ConcurrentLinkedQueue<>();
+        private final Map<String, String> failedPrefixes = new ConcurrentSkipListMap<>();
+
+        private ReconciliationRun(ReconciliationMode mode, int sampleSize) {
+            this.mode = mode;
+            this.sampleSize = sampleSize;
+        }
+
+        // Keeps the first findings for the report, the counter already includes the given one
+        private void sample(Queue<String> samples, LongAdder findings, String value) {
+            if (findings.sum() <= sampleSize) {
+                samples.add(value);
+            }
+        }
+
+        private void complete() {
+            finishedAt = Instant.now();
+            status = failedPrefixes.isEmpty() ? Status.COMPLETED : Status.FAILED;
+        }
+
+        private void fail(Exception e) {
+            error = String.valueOf(e.getMessage());
+            finishedAt = Instant.now();
+            status = Status.FAILED;
+        }
+
+        private ReconciliationReport toReport() {
+            return new ReconciliationReport(status, mode, startedAt, finishedAt, prefixCount.get(), completedPrefixCount.get(),
+                    scannedObjects.sum(), scannedRows.sum(), orphanObjects.sum(), danglingRows.sum(), deletedObjects.sum(), deletedRows.sum(),
+                    List.copyOf(sampleOrphanObjects), List.copyOf(sampleDanglingRows), new TreeMap<>(failedPrefixes), error);
+        }
+    }
+}
@@ -1,14 +1,61 @@
 package com.example.s3integration.repository;
 
 import com.example.s3integration.model.entity.FileStorage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface FileStorageRepository extends JpaRepository<FileStorage, Long> {
+public interface FileStorageRepository extends JpaRepository<FileStorage, Long>, JpaSpecificationExecutor<FileStorage> {
 
     Optional<FileStorage> findByFileKey(String fileKey);
     Optional<FileStorage> findByFilePath(String filePath);
+    List<FileStorage> findByFileKeyIn(Collection<String> fileKeys);
+    List<FileStorage> findByFilePathStartingWithAndIdGreaterThanOrderByIdAsc(String filePathPrefix, long afterId, Limit limit);
+
+    // Paths of the given ones that rows point to, including rows marked as deleted; native, as the entity hides them from JPQL
+    @Query(value = "select file_path from file_storage where file_path in :filePaths", nativeQuery = true)
+    List<String> findFilePathsIn(@Param("filePaths") Collection<String> filePaths);
+
+    // Distinct directories of the rows matching a LIKE pattern, up to the first slash at or after the given position (1-based)
+    @Query("select distinct substring(f.filePath, 1, locate('/', f.filePath, :position)) from FileStorage f "
+            + "where f.filePath like :pattern escape '\\' and locate('/', f.filePath, :position) > 0")
+    List<String> findDirectories(@Param("pattern") String pattern, @Param("position") int position);
+
+    // Rows whose path matches a LIKE pattern escaped with a backslash, ordered by path, including rows marked as deleted
+    @Query(value = "select id, file_key as fileKey, file_path as filePath, created_at as createdAt, deleted_at is not null as deleted "
+            + "from file_storage where file_path like :pattern escape '\\' order by file_path", nativeQuery = true)
+    Stream<StoredFilePath> streamFilePaths(@Param("pattern") String pattern);
+
+    // Rows whose path matches the first pattern but not the second, ordered by path, including rows marked as deleted
+    @Query(value = "select id, file_key as fileKey, file_path as filePath, created_at as createdAt, deleted_at is not null as deleted "
+            + "from file_storage where file_path like :pattern escape '\\' and file_path not like :excludedPattern escape '\\' order by file_path", nativeQuery = true)
+    Stream<StoredFilePath> streamFilePaths(@Param("pattern") String pattern, @Param("excludedPattern") String excludedPattern);
+
+    // Marks live rows as deleted, leaving them to the tombstone collector; returns the number of marked rows
+    @Transactional
+    @Modifying
+    @Query("update FileStorage f set f.deletedAt = :deletedAt where f.fileKey in :fileKeys and f.deletedAt is null")
+    int markDeleted(@Param("fileKeys") Collection<String> fileKeys, @Param("deletedAt") Instant deletedAt);
+
+    // Deletes rows whether they are marked as deleted or not; native, as the entity restriction also applies to JPQL deletes
+    @Transactional
+    @Modifying
+    @Query(value = "delete from file_storage where id in :ids", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Rows marked as deleted with an id above the given one, ordered by id; native, as the entity hides them from JPQL
+    @Query(value = "select * from file_storage where deleted_at is not null and id > :afterId order by id limit :limit", nativeQuery = true)
+    List<FileStorage> findDeleted(@Param("afterId") long afterId, @Param("limit") int limit);
 }
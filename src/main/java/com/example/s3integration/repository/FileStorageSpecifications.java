@@ -0,0 +1,51 @@
+package com.example.s3integration.repository;
+
+import com.example.s3integration.model.entity.FileStorage;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Query conditions of the file listing. Only the conditions of the given filters are added to a query,
+ * so that the database can use the matching index.
+ */
+public final class FileStorageSpecifications {
+
+    private FileStorageSpecifications() {
+    }
+
+    // Prefix match, which can use the index on the original file name
+    public static Specification<FileStorage> originalFileNameStartsWith(String prefix) {
+        return (root, query, builder) -> builder.like(root.get("originalFileName"), escapeLike(prefix) + "%", '\\');
+    }
+
+    // Exact content type, or a whole type such as "image/*"
+    public static Specification<FileStorage> contentTypeMatches(String contentType) {
+        if (contentType.endsWith("/*")) {
+            String prefix = contentType.substring(0, contentType.length() - 1);
+            return (root, query, builder) -> builder.like(root.get("contentType"), escapeLike(prefix) + "%", '\\');
+        }
+        return (root, query, builder) -> builder.equal(root.get("contentType"), contentType);
+    }
+
+    public static Specification<FileStorage> createdAtFrom(LocalDateTime from) {
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    public static Specification<FileStorage> createdAtBefore(LocalDateTime to) {
+        return (root, query, builder) -> builder.lessThan(root.get("createdAt"), to);
+    }
+
+    // Seek condition of keyset pagination: (created_at, id) > (cursor.createdAt, cursor.id)
+    public static Specification<FileStorage> after(FileListCursor cursor) {
+        return (root, query, builder) -> builder.or(
+                builder.greaterThan(root.get("createdAt"), cursor.createdAt()),
+                builder.and(
+                        builder.equal(root.get("createdAt"), cursor.createdAt()),
+                        builder.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.s3integration.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a file row needed to match it against the objects in the bucket.
+ * Read as a projection, so streaming millions of them does not fill the persistence context.
+ * Rows marked as deleted are included, as their objects belong to them until the tombstone collector removes both.
+ */
+public interface StoredFilePath {
+
+    Long getId();
+
+    String getFileKey();
+
+    // The path of the object the row points to
+    String getFilePath();
+
+    LocalDateTime getCreatedAt();
+
+    // Whether the row is marked as deleted and waits for the tombstone collector
+    boolean isDeleted();
+}
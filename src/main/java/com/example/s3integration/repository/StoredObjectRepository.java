@@ -0,0 +1,23 @@
+package com.example.s3integration.repository;
+
+import com.example.s3integration.model.entity.StoredObject;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, Long> {
+
+    // Locks the row until the end of the transaction, so reference count changes of the same content are serialized
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StoredObject> findByContentHash(String contentHash);
+
+    // Locks the rows in hash order, like the releases of references, so that they cannot deadlock with each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StoredObject> findByFilePathInOrderByContentHash(Collection<String> filePaths);
+}
@@ -1,10 +1,23 @@
 package com.example.s3integration.service;
 
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.response.storage.FileBatchUploadResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
 import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
 import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 public interface FileStorageService {
 
     /**
@@ -16,9 +29,109 @@ public interface FileStorageService {
      */
     InputStreamResource getFile(String key);
 
+    /**
+     * Retrieves a byte range of a file from the storage system for streaming.
+     * The file is identified by metadata already obtained from {@link #getFileMetadata(String)},
+     * so that a download resolves the metadata only once.
+     *
+     * @param fileMetadata the metadata of the file to retrieve
+     * @param start the position of the first byte to retrieve
+     * @param end the position of the last byte to retrieve (inclusive)
+     * @return an InputStreamResource containing only the requested bytes
+     */
+    InputStreamResource getFile(FileMetadataResponse fileMetadata, long start, long end);
+
+    /**
+     * Writes a whole file to the given output stream.
+     * Files above the configured threshold are fetched as byte ranges in parallel and reassembled in order,
+     * so that a single connection to the storage does not limit the download throughput.
+     *
+     * @param fileMetadata the metadata of the file to retrieve
+     * @param fileLength the size of the file in bytes
+     * @param outputStream the stream the file content is written to
+     */
+    void writeFile(FileMetadataResponse fileMetadata, long fileLength, OutputStream outputStream);
+
+    /**
+     * Writes the original content of a compressed file to the given output stream, decompressing the stored
+     * object while it is streamed. The object is read as a single stream, from the local disk cache if it is cached.
+     *
+     * @param fileMetadata the metadata of the file to retrieve, with a content encoding
+     * @param fileLength the size of the stored object in bytes
+     * @param outputStream the stream the original content is written to
+     */
+    void writeDecodedFile(FileMetadataResponse fileMetadata, long fileLength, OutputStream outputStream);
+
+    /**
+     * Passes the metadata of one page of the files matching the search filters to the consumer, ordered by creation time.
+     * Rows are read from the database in chunks, each in a short transaction, and handed over between them, so a
+     * large page is never held in memory and a slow consumer does not hold a database connection.
+     * Pages are addressed by a cursor (keyset pagination), which keeps every page as cheap as the first one.
+     *
+     * @param request the search filters, the page size and the cursor of the page
+     * @param consumer receives the metadata of every file of the page in order
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    String searchFiles(FileSearchRequest request, Consumer<FileMetadataResponse> consumer);
+
+    /**
+     * Returns the local disk cache copy of a file, if the file is cached.
+     * Cached files can be sent to the client directly from disk without reaching the storage.
+     *
+     * @param fileMetadata the metadata of the file
+     * @return the cached file, or empty if the file is not cached
+     */
+    Optional<Path> getCachedFile(FileMetadataResponse fileMetadata);
+
+    /**
+     * Returns a link to a cached file that stays readable for a while even if the file is evicted from the cache,
+     * for readers that open the file only after the request, such as the container's sendfile support.
+     *
+     * @param cachedFile a file returned by {@link #getCachedFile(FileMetadataResponse)}
+     * @return the link, or empty if the file was evicted already or cannot be linked
+     */
+    Optional<Path> linkCachedFile(Path cachedFile);
+
+    /**
+     * Retrieves the size of a file from its metadata, asking the storage only for files stored without a size.
+     *
+     * @param fileMetadata the metadata of the file
+     * @return the size of the file in bytes
+     */
+    long getFileLength(FileMetadataResponse fileMetadata);
+
+    /**
+     * Issues a short-lived URL the client uploads a new file to directly, so that the file content does not pass
+     * through this application. The file is registered only after {@link #completePresignedUpload(String)}.
+     *
+     * @param fileName the original name of the file (provided by the client)
+     * @param contentType the content type declared by the client, may be null
+     * @return the generated key of the file and the URL, method and headers of the upload request
+     */
+    PresignedUrlResponse createPresignedUpload(String fileName, String contentType);
+
+    /**
+     * Registers a file uploaded through a presigned URL, after checking that the object exists in the storage.
+     * Size, content type and ETag are taken from the stored object. An upload can be completed only once.
+     *
+     * @param key the key returned when the upload URL was issued
+     * @return the key of the registered file
+     */
+    FileUploadResponse completePresignedUpload(String key);
+
+    /**
+     * Issues a short-lived URL the client downloads a file from directly, so that the file content does not pass
+     * through this application.
+     *
+     * @param key the key of the file to download
+     * @return the URL and method of the download request
+     */
+    PresignedUrlResponse createPresignedDownload(String key);
+
     /**
      * Retrieves the metadata of a file stored in the system using the provided key.
      * This method does not download the file but only fetches metadata such as file path and key.
+     * Lookups are served from an in-process cache that is invalidated when the file is deleted or copied.
      *
      * @param key The unique key of the file.
      * @return The file metadata as a response object.
@@ -33,6 +146,16 @@ public interface FileStorageService {
      */
     FileUploadResponse uploadFile(MultipartFile file);
 
+    /**
+     * Uploads many files to the storage in one call.
+     * Files are transferred to S3 concurrently, with at most the configured number in flight, and the metadata
+     * of all uploaded files is saved with batched inserts. A file that fails is reported without failing the others.
+     *
+     * @param files the files to be uploaded
+     * @return the number of uploaded and failed files and the outcome for every file, in request order
+     */
+    FileBatchUploadResponse uploadFiles(List<MultipartFile> files);
+
     /**
      * Uploads a file to the storage using a streaming approach.
      * This method allows large files to be uploaded efficiently by processing them as a stream
@@ -44,6 +167,34 @@ public interface FileStorageService {
      */
     FileUploadResponse uploadFileStream(InputStreamResource fileStream, String fileName);
 
+    /**
+     * Writes an uploaded file to a local temporary file and generates its key and path, without transferring it
+     * to the storage yet. The content is hashed and compressed on its way to disk, as by a regular upload.
+     *
+     * @param file the file to spool
+     * @return the spooled upload; the caller must delete its file once it is no longer needed
+     */
+    SpooledUpload spoolFile(MultipartFile file);
+
+    /**
+     * Writes a file stream to a local temporary file and generates its key and path, without transferring it
+     * to the storage yet. The content is hashed and compressed on its way to disk, as by a regular upload.
+     *
+     * @param inputStream the content of the file
+     * @param fileName the original name of the file (provided by the client)
+     * @return the spooled upload; the caller must delete its file once it is no longer needed
+     */
+    SpooledUpload spoolFileStream(InputStream inputStream, String fileName);
+
+    /**
+     * Transfers a spooled upload to the storage, unless the same content is already stored, and saves its metadata.
+     * The spooled file is left in place.
+     *
+     * @param upload the upload returned by {@link #spoolFile(MultipartFile)} or {@link #spoolFileStream(InputStream, String)}
+     * @return the key of the stored file
+     */
+    FileUploadResponse storeSpooledFile(SpooledUpload upload);
+
     /**
      * Deletes a file from the storage using the provided key.
      *
@@ -51,6 +202,17 @@ public interface FileStorageService {
      */
     void deleteFile(String key);
 
+    /**
+     * Deletes many files from the storage at once.
+     * All keys are resolved with a single query, the files are deleted from S3 in parallel batches and the
+     * metadata of every deleted file is removed with one statement. Keys that are unknown or could not be
+     * deleted are reported as failed without affecting the others.
+     *
+     * @param keys the keys of the files to delete
+     * @return the number of deleted and failed files and the outcome for every key
+     */
+    FileBulkDeleteResponse deleteFiles(List<String> keys);
+
     /**
      * Copies a file within the storage from source key to destination key.
      *
@@ -58,4 +220,45 @@ public interface FileStorageService {
      * @param targetDirectory the directory where the file will be copied to
      */
     void copyFile(String sourceKey, String targetDirectory);
+
+    /**
+     * Copies many files into a target directory at once, selected either by key or by a path prefix
+     * such as a date folder. Files are copied concurrently, large files as parallel part ranges, and the
+     * metadata of all copied files is updated in batches. Progress is logged while the copies run.
+     * A copy by prefix takes at most the configured maximum of files in id order and returns a cursor
+     * to continue after them.
+     *
+     * @param keys the keys of the files to copy, or null to select the files by prefix
+     * @param sourcePrefix the path prefix of the files to copy, used when no keys are given
+     * @param cursor the cursor returned by the previous copy of the same prefix, or null to start with the first file
+     * @param targetDirectory the directory where the files will be copied to
+     * @return the number of copied and failed files, the outcome for every key and the cursor of the next copy, if any
+     */
+    FileBulkCopyResponse copyFiles(List<String> keys, String sourcePrefix, String cursor, String targetDirectory);
+
+    /**
+     * Uploads a file to the storage without holding the calling thread while the file is transferred.
+     * The file is spooled to a temporary file first; the transfer and the metadata save complete the returned future.
+     *
+     * @param file the file to be uploaded
+     * @return a future completed with the generated key for the uploaded file
+     */
+    CompletableFuture<FileUploadResponse> uploadFileAsync(MultipartFile file);
+
+    /**
+     * Deletes a file from the storage without holding the calling thread while the file is deleted.
+     *
+     * @param key the key of the file to delete
+     * @return a future completed when the file and its metadata are deleted
+     */
+    CompletableFuture<Void> deleteFileAsync(String key);
+
+    /**
+     * Copies a file within the storage without holding the calling thread while the file is copied.
+     *
+     * @param sourceKey the key of the source file
+     * @param targetDirectory the directory where the file will be copied to
+     * @return a future completed when the file is copied and its metadata updated
+     */
+    CompletableFuture<Void> copyFileAsync(String sourceKey, String targetDirectory);
 }
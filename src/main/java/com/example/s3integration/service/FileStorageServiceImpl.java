@@ -1,23 +1,87 @@
 package com.example.s3integration.service;
 
+import com.example.s3integration.cache.FileStorageCache;
+import com.example.s3integration.cache.ObjectDiskCache;
+import com.example.s3integration.cache.PendingUploadCache;
+import com.example.s3integration.config.properties.S3ConfigProperties;
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.config.properties.StorageConfigProperties.DeletionMode;
+import com.example.s3integration.config.properties.StorageConfigProperties.StreamUploadMode;
 import com.example.s3integration.exception.custom.storage.StorageServiceException;
 import com.example.s3integration.mapper.FileStorageMapper;
+import com.example.s3integration.metrics.StorageMetrics;
 import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.model.entity.StoredObject;
 import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.response.storage.FileBatchUploadResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
 import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
+import com.example.s3integration.model.http.response.storage.FileOperationResult;
 import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.FileUploadResult;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
+import com.example.s3integration.repository.FileListCursor;
 import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.util.ContentCompressor;
 import com.example.s3integration.util.FileUtils;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.CopyObjectResult;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.s3integration.repository.FileStorageSpecifications.after;
+import static com.example.s3integration.repository.FileStorageSpecifications.contentTypeMatches;
+import static com.example.s3integration.repository.FileStorageSpecifications.createdAtBefore;
+import static com.example.s3integration.repository.FileStorageSpecifications.createdAtFrom;
+import static com.example.s3integration.repository.FileStorageSpecifications.originalFileNameStartsWith;
 
 @Service
 @RequiredArgsConstructor
@@ -25,78 +89,478 @@ public class FileStorageServiceImpl implements FileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageServiceImpl.class);
 
+    // Rows of a file listing read per transaction, matching the JDBC fetch size
+    private static final int LIST_CHUNK_SIZE = 500;
+
     private final FileUtils fileUtils;
+    private final ContentCompressor contentCompressor;
     private final S3ClientService s3ClientService;
     private final FileStorageMapper fileStorageMapper;
     private final FileStorageRepository fileStorageRepository;
+    private final FileStorageCache fileStorageCache;
+    private final ObjectDiskCache objectDiskCache;
+    private final PendingUploadCache pendingUploadCache;
+    private final StoredObjectService storedObjectService;
+    private final S3ConfigProperties s3ConfigProperties;
+    private final StorageConfigProperties storageConfigProperties;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final StorageMetrics storageMetrics;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
 
     // Downloads a file as InputStream from the storage
     @Override
     public InputStreamResource getFile(String key) {
+        Timer.Sample sample = storageMetrics.start();
         try {
-            // Retrieve file metadata (file path) from the database using the fileKey
-            FileStorage fileStorage = fileStorageRepository.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File not found for key: " + key));
+            // Retrieve file metadata (file path) from the cache or the database using the fileKey
+            FileStorage fileStorage = fileStorageCache.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File not found for key: " + key));
             // Download the file from S3 using the file path stored in the metadata
             InputStream fileInputStream = s3ClientService.getFile(fileStorage.getFilePath());
             logger.debug("File downloaded successfully for key: {}", key);
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, true);
             return new InputStreamResource(fileInputStream);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, false);
             logger.error("Failed to download file with key: {}", key, e);
             throw new StorageServiceException("Failed to download file with key: " + key, e);
         }
     }
 
+    // Downloads a byte range of a file as InputStream from the storage, using already resolved metadata
+    @Override
+    public InputStreamResource getFile(FileMetadataResponse fileMetadata, long start, long end) {
+        // Times the request up to the first byte, the range is streamed to the client by the caller
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            InputStream fileInputStream = s3ClientService.getFile(fileMetadata.getFilePath(), start, end);
+            logger.debug("File range {}-{} downloaded successfully for key: {}", start, end, fileMetadata.getFileKey());
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD_RANGE, true);
+            storageMetrics.recordDownloadedBytes(end - start + 1);
+            return new InputStreamResource(fileInputStream);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD_RANGE, false);
+            logger.error("Failed to download range {}-{} of file with key: {}", start, end, fileMetadata.getFileKey(), e);
+            throw new StorageServiceException("Failed to download range of file with key: " + fileMetadata.getFileKey(), e);
+        }
+    }
+
+    // Writes a whole file to the output stream, using parallel ranged downloads for large files
+    @Override
+    public void writeFile(FileMetadataResponse fileMetadata, long fileLength, OutputStream outputStream) {
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            S3ConfigProperties.Download download = s3ConfigProperties.getDownload();
+            if (download.isParallelEnabled() && fileLength >= download.getParallelThreshold().toBytes()) {
+                s3ClientService.downloadFile(fileMetadata.getFilePath(), fileLength, outputStream);
+                logger.debug("File downloaded successfully in parallel ranges for key: {}", fileMetadata.getFileKey());
+            } else {
+                // Frequently read files are copied to the local disk cache while they are streamed
+                try (InputStream fileInputStream = objectDiskCache.readThrough(fileMetadata.getFilePath(), fileLength, s3ClientService.getFile(fileMetadata.getFilePath()))) {
+                    fileInputStream.transferTo(outputStream);
+                }
+                logger.debug("File downloaded successfully for key: {}", fileMetadata.getFileKey());
+            }
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, true);
+            storageMetrics.recordDownloadedBytes(fileLength);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, false);
+            logger.error("Failed to download file with key: {}", fileMetadata.getFileKey(), e);
+            throw new StorageServiceException("Failed to download file with key: " + fileMetadata.getFileKey(), e);
+        }
+    }
+
+    // Writes the original content of a compressed file, decompressing the stored object while it is streamed
+    @Override
+    public void writeDecodedFile(FileMetadataResponse fileMetadata, long fileLength, OutputStream outputStream) {
+        Timer.Sample sample = storageMetrics.start();
+        try (InputStream storedStream = openStoredFile(fileMetadata.getFilePath(), fileLength)) {
+            contentCompressor.decode(storedStream, fileMetadata.getContentEncoding()).transferTo(outputStream);
+            // The decompressor stops at the gzip trailer; reading to the end lets the disk cache keep its copy
+            storedStream.transferTo(OutputStream.nullOutputStream());
+            logger.debug("File decompressed successfully for key: {}", fileMetadata.getFileKey());
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, true);
+            storageMetrics.recordDownloadedBytes(fileLength);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DOWNLOAD, false);
+            logger.error("Failed to download file with key: {}", fileMetadata.getFileKey(), e);
+            throw new StorageServiceException("Failed to download file with key: " + fileMetadata.getFileKey(), e);
+        }
+    }
+
+    // Streams one page of the files matching the filters, seeking past the cursor instead of skipping rows. The page
+    // is read in chunks, each in a short transaction, and handed to the consumer between them, so a slow client
+    // never holds a database connection.
+    @Override
+    public String searchFiles(FileSearchRequest request, Consumer<FileMetadataResponse> consumer) {
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            // Only the given filters become conditions of the query
+            Specification<FileStorage> specification = Specification.where(null);
+            if (StringUtils.hasText(request.getName())) {
+                specification = specification.and(originalFileNameStartsWith(request.getName()));
+            }
+            if (StringUtils.hasText(request.getContentType())) {
+                specification = specification.and(contentTypeMatches(request.getContentType()));
+            }
+            if (request.getCreatedFrom() != null) {
+                specification = specification.and(createdAtFrom(request.getCreatedFrom()));
+            }
+            if (request.getCreatedTo() != null) {
+                specification = specification.and(createdAtBefore(request.getCreatedTo()));
+            }
+
+            FileListCursor cursor = StringUtils.hasText(request.getCursor()) ? FileListCursor.decode(request.getCursor()) : null;
+            int remaining = request.getLimit();
+            String nextCursor = null;
+            while (remaining > 0) {
+                int chunkSize = Math.min(remaining, LIST_CHUNK_SIZE);
+                FileListChunk chunk = readListChunk(specification, cursor, chunkSize);
+                chunk.files().forEach(consumer);
+                remaining -= chunk.files().size();
+                if (!chunk.hasMore()) {
+                    break;
+                }
+                cursor = chunk.last();
+                if (remaining == 0) {
+                    nextCursor = cursor.encode();
+                }
+            }
+            storageMetrics.recordOperation(sample, StorageMetrics.LIST, true);
+            return nextCursor;
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.LIST, false);
+            logger.error("Failed to list files", e);
+            throw new StorageServiceException("Failed to list files", e);
+        }
+    }
+
+    // Reads the next chunk of a listing after the cursor; one row more than the chunk size tells whether more follow
+    private FileListChunk readListChunk(Specification<FileStorage> filters, FileListCursor cursor, int chunkSize) {
+        Specification<FileStorage> specification = cursor != null ? filters.and(after(cursor)) : filters;
+        return transactionTemplate.execute(status -> {
+            List<FileStorage> rows = fileStorageRepository.findBy(specification, query -> query
+                    .sortBy(Sort.by("createdAt", "id"))
+                    .limit(chunkSize + 1)
+                    .all());
+            List<FileMetadataResponse> files = new ArrayList<>(Math.min(rows.size(), chunkSize));
+            FileListCursor last = null;
+            for (FileStorage fileStorage : rows.subList(0, Math.min(rows.size(), chunkSize))) {
+                files.add(fileStorageMapper.toMetadataResponse(fileStorage));
+                last = new FileListCursor(fileStorage.getCreatedAt(), fileStorage.getId());
+            }
+            // Keeps the persistence context from growing with the page when the entity manager outlives the transaction
+            rows.forEach(entityManager::detach);
+            return new FileListChunk(files, last, rows.size() > chunkSize);
+        });
+    }
+
+    private record FileListChunk(List<FileMetadataResponse> files, FileListCursor last, boolean hasMore) {
+    }
+
+    // Looks up the local disk cache for a copy of the file
+    @Override
+    public Optional<Path> getCachedFile(FileMetadataResponse fileMetadata) {
+        return objectDiskCache.get(fileMetadata.getFilePath());
+    }
+
+    // Links a cached file so that an eviction cannot delete it before it is read
+    @Override
+    public Optional<Path> linkCachedFile(Path cachedFile) {
+        return objectDiskCache.link(cachedFile);
+    }
+
+    // Retrieves the size of a file, using already resolved metadata
+    @Override
+    public long getFileLength(FileMetadataResponse fileMetadata) {
+        if (fileMetadata.getContentLength() != null) {
+            return fileMetadata.getContentLength();
+        }
+        try {
+            // Files stored before sizes were recorded fall back to the object metadata in S3
+            return s3ClientService.getFileMetadata(fileMetadata.getFilePath()).contentLength();
+        } catch (Exception e) {
+            logger.error("Failed to retrieve file length for key: {}", fileMetadata.getFileKey(), e);
+            throw new StorageServiceException("Failed to retrieve file length for key: " + fileMetadata.getFileKey(), e);
+        }
+    }
+
     // Uploads a file to the storage
     @Override
     public FileUploadResponse uploadFile(MultipartFile file) {
+        Timer.Sample sample = storageMetrics.start();
+        storageMetrics.uploadStarted();
         File tempFile = null;
         try {
-            // Generate file key and path, and create request model
-            FileCreateRequest request = generatFileCreateRequest(file.getOriginalFilename());
-            // Convert MultipartFile to a temporary File
-            tempFile = fileUtils.convertMultiPartToFile(file);
+            // Convert MultipartFile to a temporary File with a generated key and path
+            SpooledUpload upload = spoolFile(file);
+            tempFile = upload.file();
+            FileCreateRequest request = upload.request();
             logger.info("Uploading file '{}' ({} bytes) to path: '{}'", file.getOriginalFilename(), file.getSize(), request.getFilePath());
-            // Upload the stored file to the final storage location
-            s3ClientService.uploadFile(request.getFilePath(), tempFile, ObjectCannedACL.PRIVATE);
+            // Upload the stored file to the final storage location, unless the same content is already stored
+            storeFile(request, tempFile, upload.contentHash());
             // Save Storage entity to database
             FileStorage fileStorage = saveStorageFileMetadata(request);
             logger.info("File uploaded successfully with key: {}", request.getFileKey());
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD, true);
+            storageMetrics.recordUploadedBytes(file.getSize());
             return fileStorageMapper.toResponse(fileStorage);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD, false);
             logger.error("Failed to upload file: {}", file.getOriginalFilename(), e);
             throw new StorageServiceException("Failed to upload file", e);
         } finally {
-            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
-                logger.warn("Temporary file '{}' could not be deleted.", tempFile.getAbsolutePath());
+            deleteTempFile(tempFile);
+            storageMetrics.uploadFinished();
+        }
+    }
+
+    // Uploads many files with a bounded number of concurrent S3 transfers and saves their metadata in batches
+    @Override
+    public FileBatchUploadResponse uploadFiles(List<MultipartFile> files) {
+        Timer.Sample sample = storageMetrics.start();
+        Semaphore inFlightUploads = new Semaphore(storageConfigProperties.getBatchUpload().getMaxConcurrency());
+        List<CompletableFuture<FileCreateRequest>> futures = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                inFlightUploads.acquire();
+                futures.add(uploadBatchFile(file).whenComplete((request, throwable) -> inFlightUploads.release()));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Batch upload interrupted after {} of {} files were submitted", futures.size(), files.size());
+        } finally {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+        }
+
+        List<FileCreateRequest> uploadedFiles = futures.stream()
+                .filter(future -> !future.isCompletedExceptionally())
+                .map(CompletableFuture::join)
+                .toList();
+        String metadataError = null;
+        try {
+            // Save the metadata of all uploaded files at once, sent as JDBC batches
+            fileStorageRepository.saveAll(uploadedFiles.stream().map(fileStorageMapper::toEntity).toList());
+        } catch (Exception e) {
+            logger.error("Failed to save metadata of {} uploaded files, removing them from the storage", uploadedFiles.size(), e);
+            discardStoredFiles(uploadedFiles);
+            metadataError = "Failed to save file metadata";
+        }
+        if (metadataError == null) {
+            uploadedFiles.forEach(request -> storageMetrics.recordUploadedBytes(request.getContentLength()));
         }
+
+        List<FileUploadResult> results = new ArrayList<>(files.size());
+        for (int index = 0; index < files.size(); index++) {
+            String fileName = files.get(index).getOriginalFilename();
+            if (index >= futures.size()) {
+                results.add(new FileUploadResult(fileName, null, false, "Upload interrupted"));
+            } else if (futures.get(index).isCompletedExceptionally()) {
+                results.add(new FileUploadResult(fileName, null, false, futures.get(index).exceptionNow().getMessage()));
+            } else if (metadataError != null) {
+                results.add(new FileUploadResult(fileName, null, false, metadataError));
+            } else {
+                results.add(new FileUploadResult(fileName, futures.get(index).join().getFileKey(), true, null));
+            }
+        }
+        int uploadedCount = (int) results.stream().filter(FileUploadResult::isSuccess).count();
+        logger.info("Batch upload finished: {} files uploaded, {} failed", uploadedCount, results.size() - uploadedCount);
+        storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_BATCH, uploadedCount == results.size());
+        return new FileBatchUploadResponse(uploadedCount, results.size() - uploadedCount, results);
     }
 
     // Uploads a file stream to the storage
     @Override
     public FileUploadResponse uploadFileStream(InputStreamResource fileStream, String fileName) {
+        Timer.Sample sample = storageMetrics.start();
+        storageMetrics.uploadStarted();
         File tempFile = null;
         try {
-            // Generate file key and path, and create request model
-            FileCreateRequest request = generatFileCreateRequest(fileName);
+            FileCreateRequest request;
             // Convert InputStreamResource to InputStream
-            InputStream inputStream = fileStream.getInputStream();
-            // Convert InputStream to a temporary file
-            tempFile = fileUtils.convertInputStreamToFile(inputStream, fileName);
-            logger.info("Uploading streamed file to path: '{}'", request.getFilePath());
-            // Upload the stored file to the final storage location
-            s3ClientService.uploadFile(request.getFilePath(), tempFile, ObjectCannedACL.PRIVATE);
+            try (InputStream inputStream = fileStream.getInputStream()) {
+                if (storageConfigProperties.getStreamUpload().getMode() == StreamUploadMode.DIRECT) {
+                    // Generate file key and path, and create request model
+                    request = generatFileCreateRequest(fileName);
+                    String contentType = fileUtils.detectContentType(fileName, null);
+                    // Buffered so that its first bytes can be inspected by the compression policy
+                    InputStream bufferedStream = new BufferedInputStream(inputStream);
+                    String contentEncoding = contentCompressor.selectEncoding(contentType, -1, bufferedStream);
+                    BoundedInputStream countingStream = BoundedInputStream.builder().setInputStream(bufferedStream).get();
+                    MessageDigest digest = createContentDigest();
+                    logger.info("Uploading streamed file directly to path: '{}'", request.getFilePath());
+                    // Pipe the stream to the final storage location in buffered parts, without touching the disk;
+                    // the original content is hashed and counted before it is compressed
+                    InputStream contentStream = digest != null ? new DigestInputStream(countingStream, digest) : countingStream;
+                    BoundedInputStream uploadStream = BoundedInputStream.builder().setInputStream(contentCompressor.encode(contentStream, contentEncoding)).get();
+                    String etag = s3ClientService.uploadFile(request.getFilePath(), uploadStream, ObjectCannedACL.PRIVATE);
+                    setContentEncoding(request, contentEncoding, countingStream.getCount());
+                    setObjectMetadata(request, uploadStream.getCount(), contentType, etag);
+                    recordCompression(request);
+                    // The digest is only complete after the upload, so duplicate content is dropped afterwards
+                    registerStoredObject(request, toContentHash(digest));
+                } else {
+                    // Convert InputStream to a temporary file with a generated key and path
+                    SpooledUpload upload = spoolFileStream(inputStream, fileName);
+                    tempFile = upload.file();
+                    request = upload.request();
+                    logger.info("Uploading streamed file to path: '{}'", request.getFilePath());
+                    // Upload the stored file to the final storage location, unless the same content is already stored
+                    storeFile(request, tempFile, upload.contentHash());
+                }
+            }
             // Save Storage entity to database
             FileStorage fileStorage = saveStorageFileMetadata(request);
             logger.info("Streamed file uploaded successfully with key: '{}'", request.getFileKey());
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_STREAM, true);
+            storageMetrics.recordUploadedBytes(request.getContentLength());
             return fileStorageMapper.toResponse(fileStorage);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_STREAM, false);
             logger.error("Failed to upload file via stream", e);
             throw new StorageServiceException("Failed to upload file via stream", e);
         } finally {
-            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
-                logger.warn("Temporary file '{}' could not be deleted.", tempFile.getAbsolutePath());
+            deleteTempFile(tempFile);
+            storageMetrics.uploadFinished();
+        }
+    }
+
+    // Spools an uploaded file with a generated key and path, hashing and compressing it on the way
+    @Override
+    public SpooledUpload spoolFile(MultipartFile file) {
+        File tempFile = null;
+        try {
+            // Generate file key and path, and create request model
+            FileCreateRequest request = generatFileCreateRequest(file.getOriginalFilename());
+            request.setContentType(fileUtils.detectContentType(file.getOriginalFilename(), file.getContentType()));
+            String contentEncoding = selectContentEncoding(file, request.getContentType());
+            // Convert MultipartFile to a temporary File, hashing its content on the way when deduplication is enabled
+            MessageDigest digest = createContentDigest();
+            tempFile = fileUtils.convertMultiPartToFile(file, digest, contentEncoding);
+            setContentEncoding(request, contentEncoding, file.getSize());
+            return new SpooledUpload(request, tempFile, toContentHash(digest));
+        } catch (Exception e) {
+            deleteTempFile(tempFile);
+            logger.error("Failed to spool file: {}", file.getOriginalFilename(), e);
+            throw new StorageServiceException("Failed to spool file", e);
+        }
+    }
+
+    // Spools a file stream with a generated key and path, hashing and compressing it on the way
+    @Override
+    public SpooledUpload spoolFileStream(InputStream inputStream, String fileName) {
+        File tempFile = null;
+        try {
+            // Generate file key and path, and create request model
+            FileCreateRequest request = generatFileCreateRequest(fileName);
+            request.setContentType(fileUtils.detectContentType(fileName, null));
+            // Buffered so that its first bytes can be inspected by the compression policy
+            InputStream bufferedStream = new BufferedInputStream(inputStream);
+            String contentEncoding = contentCompressor.selectEncoding(request.getContentType(), -1, bufferedStream);
+            BoundedInputStream countingStream = BoundedInputStream.builder().setInputStream(bufferedStream).get();
+            // Convert InputStream to a temporary file, hashing its content on the way when deduplication is enabled
+            MessageDigest digest = createContentDigest();
+            tempFile = fileUtils.convertInputStreamToFile(countingStream, fileName, digest, contentEncoding);
+            setContentEncoding(request, contentEncoding, countingStream.getCount());
+            return new SpooledUpload(request, tempFile, toContentHash(digest));
+        } catch (Exception e) {
+            deleteTempFile(tempFile);
+            logger.error("Failed to spool file stream: {}", fileName, e);
+            throw new StorageServiceException("Failed to spool file stream", e);
+        }
+    }
+
+    // Uploads a spooled file and saves its metadata, leaving the spooled file to the caller
+    @Override
+    public FileUploadResponse storeSpooledFile(SpooledUpload upload) {
+        Timer.Sample sample = storageMetrics.start();
+        storageMetrics.uploadStarted();
+        FileCreateRequest request = upload.request();
+        try {
+            logger.info("Uploading spooled file '{}' to path: '{}'", request.getOriginalFileName(), request.getFilePath());
+            // Upload the spooled file to the final storage location, unless the same content is already stored
+            storeFile(request, upload.file(), upload.contentHash());
+            // Save Storage entity to database
+            FileStorage fileStorage = saveStorageFileMetadata(request);
+            logger.info("Spooled file uploaded successfully with key: {}", request.getFileKey());
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_JOB, true);
+            storageMetrics.recordUploadedBytes(request.getContentLength());
+            return fileStorageMapper.toResponse(fileStorage);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_JOB, false);
+            logger.error("Failed to upload spooled file with key: {}", request.getFileKey(), e);
+            throw new StorageServiceException("Failed to upload spooled file with key: " + request.getFileKey(), e);
+        } finally {
+            storageMetrics.uploadFinished();
+        }
+    }
+
+    // Issues a presigned upload URL for a newly generated file key and path
+    @Override
+    public PresignedUrlResponse createPresignedUpload(String fileName, String contentType) {
+        try {
+            // Generate file key and path, and create request model
+            FileCreateRequest request = generatFileCreateRequest(fileName);
+            request.setContentType(fileUtils.detectContentType(fileName, contentType));
+            PresignedPutObjectRequest presignedRequest = s3ClientService.presignUpload(request.getFilePath(), request.getContentType(),
+                    s3ConfigProperties.getPresign().getUploadExpiration());
+            // Remember the issued path until the client completes the upload
+            pendingUploadCache.put(request);
+            logger.info("Issued presigned upload URL for file '{}' with key: {}", fileName, request.getFileKey());
+            // The host header is set by every HTTP client from the URL itself
+            Map<String, String> headers = presignedRequest.signedHeaders().entrySet().stream()
+                    .filter(header -> !header.getKey().equalsIgnoreCase("host"))
+                    .collect(Collectors.toMap(Map.Entry::getKey, header -> String.join(",", header.getValue())));
+            return new PresignedUrlResponse(request.getFileKey(), presignedRequest.url().toString(), presignedRequest.httpRequest().method().name(),
+                    headers, presignedRequest.expiration());
+        } catch (Exception e) {
+            logger.error("Failed to issue presigned upload URL for file: {}", fileName, e);
+            throw new StorageServiceException("Failed to issue presigned upload URL", e);
+        }
+    }
+
+    // Registers a file uploaded through a presigned URL once the object is found in S3
+    @Override
+    public FileUploadResponse completePresignedUpload(String key) {
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            FileCreateRequest request = pendingUploadCache.get(key).orElseThrow(() -> new StorageServiceException("No pending upload for key: " + key));
+            // Fails if the client has not uploaded the file (yet); the upload stays pending and can be completed later
+            HeadObjectResponse objectMetadata = s3ClientService.getFileMetadata(request.getFilePath());
+            if (pendingUploadCache.remove(key).isEmpty()) {
+                throw new StorageServiceException("Upload already completed for key: " + key);
             }
+            request.setContentLength(objectMetadata.contentLength());
+            request.setContentType(objectMetadata.contentType() != null ? objectMetadata.contentType() : request.getContentType());
+            request.setEtag(objectMetadata.eTag());
+            request.setLastModified(objectMetadata.lastModified());
+            FileStorage fileStorage = saveStorageFileMetadata(request);
+            logger.info("Presigned upload completed with key: {} ({} bytes)", key, objectMetadata.contentLength());
+            // The content itself was sent to S3 by the client and is not counted as transferred bytes
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_COMPLETE, true);
+            return fileStorageMapper.toResponse(fileStorage);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD_COMPLETE, false);
+            logger.error("Failed to complete presigned upload with key: {}", key, e);
+            throw new StorageServiceException("Failed to complete presigned upload with key: " + key, e);
+        }
+    }
+
+    // Issues a presigned download URL for a stored file
+    @Override
+    public PresignedUrlResponse createPresignedDownload(String key) {
+        try {
+            FileStorage fileStorage = fileStorageCache.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File not found for key: " + key));
+            String contentType = fileStorage.getContentType() != null ? fileStorage.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            PresignedGetObjectRequest presignedRequest = s3ClientService.presignDownload(fileStorage.getFilePath(),
+                    fileUtils.extractFileNameFromPath(fileStorage.getFilePath()), contentType, fileStorage.getContentEncoding(),
+                    s3ConfigProperties.getPresign().getDownloadExpiration());
+            logger.debug("Issued presigned download URL for key: {}", key);
+            return new PresignedUrlResponse(key, presignedRequest.url().toString(), presignedRequest.httpRequest().method().name(),
+                    Map.of(), presignedRequest.expiration());
+        } catch (Exception e) {
+            logger.error("Failed to issue presigned download URL for key: {}", key, e);
+            throw new StorageServiceException("Failed to issue presigned download URL for key: " + key, e);
         }
     }
 
@@ -104,12 +568,15 @@ public class FileStorageServiceImpl implements FileStorageService {
     // This method does not download the file but only fetches metadata such as file path and key.
     @Override
     public FileMetadataResponse getFileMetadata(String key) {
+        Timer.Sample sample = storageMetrics.start();
         try {
-            // Retrieve file metadata (file path, file key) from the database
-            FileStorage fileStorage = fileStorageRepository.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File metadata not found for key: " + key));
+            // Retrieve file metadata (file path, file key) from the cache or the database
+            FileStorage fileStorage = fileStorageCache.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File metadata not found for key: " + key));
+            storageMetrics.recordOperation(sample, StorageMetrics.METADATA, true);
             // Map entity to response model
             return fileStorageMapper.toMetadataResponse(fileStorage);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.METADATA, false);
             logger.error("Failed to retrieve file metadata for key: {}", key, e);
             throw new StorageServiceException("Failed to retrieve file metadata for key: " + key, e);
         }
@@ -118,51 +585,584 @@ public class FileStorageServiceImpl implements FileStorageService {
     // Deletes a file from the storage
     @Override
     public void deleteFile(String key) {
+        Timer.Sample sample = storageMetrics.start();
         try {
+            if (isTombstoneDeletion()) {
+                // Only the row is marked, the object is deleted by the tombstone collector
+                if (fileStorageRepository.markDeleted(List.of(key), Instant.now()) == 0) {
+                    throw new StorageServiceException("File not found for key: " + key);
+                }
+                fileStorageCache.invalidate(key);
+                logger.info("File marked as deleted with key: {}", key);
+                storageMetrics.recordOperation(sample, StorageMetrics.DELETE, true);
+                return;
+            }
             // Retrieve file metadata (file path) from the database using the fileKey
             FileStorage fileStorage = fileStorageRepository.findByFileKey(key).orElseThrow(() -> new StorageServiceException("File not found for key: " + key));
-            // Delete the file from S3 using the file path from the metadata
-            s3ClientService.deleteFile(fileStorage.getFilePath());
-            // Remove the file metadata from the database
-            fileStorageRepository.delete(fileStorage);
+            if (fileStorage.getContentHash() != null) {
+                // A deduplicated object is only deleted with the last file pointing to it
+                deleteSharedFiles(List.of(fileStorage));
+            } else {
+                // Delete the file from S3 using the file path from the metadata
+                s3ClientService.deleteFile(fileStorage.getFilePath());
+                // Remove the file metadata from the database
+                removeFileMetadata(fileStorage);
+            }
             logger.info("File deleted successfully with key: {}", key);
+            storageMetrics.recordOperation(sample, StorageMetrics.DELETE, true);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DELETE, false);
             logger.error("Failed to delete file with key: {}", key, e);
             throw new StorageServiceException("Failed to delete file with key: " + key, e);
         }
     }
 
+    // Deletes many files from the storage with batched S3 and database requests
+    @Override
+    public FileBulkDeleteResponse deleteFiles(List<String> keys) {
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            Set<String> uniqueKeys = new LinkedHashSet<>(keys);
+            // Resolve all keys with a single query
+            Map<String, FileStorage> fileStorages = fileStorageRepository.findByFileKeyIn(uniqueKeys).stream()
+                    .collect(Collectors.toMap(FileStorage::getFileKey, Function.identity()));
+            if (isTombstoneDeletion()) {
+                return markFilesDeleted(uniqueKeys, fileStorages.keySet(), sample);
+            }
+            Map<Boolean, List<FileStorage>> filesBySharing = fileStorages.values().stream()
+                    .collect(Collectors.partitioningBy(fileStorage -> fileStorage.getContentHash() != null));
+            // Deduplicated objects are only deleted with the last file pointing to them
+            List<FileStorage> sharedFiles = filesBySharing.get(true);
+            if (!sharedFiles.isEmpty()) {
+                deleteSharedFiles(sharedFiles);
+            }
+            // Delete the other files from S3 in parallel batches, failed paths are reported back
+            Map<String, String> failedPaths = s3ClientService.deleteFiles(filesBySharing.get(false).stream().map(FileStorage::getFilePath).toList());
+            List<FileStorage> deletedFiles = filesBySharing.get(false).stream()
+                    .filter(fileStorage -> !failedPaths.containsKey(fileStorage.getFilePath()))
+                    .toList();
+            // Remove the metadata of all deleted files with one statement
+            fileStorageRepository.deleteAllByIdInBatch(deletedFiles.stream().map(FileStorage::getId).toList());
+            deletedFiles.forEach(fileStorage -> {
+                fileStorageCache.invalidate(fileStorage.getFileKey());
+                objectDiskCache.invalidate(fileStorage.getFilePath());
+            });
+
+            List<FileOperationResult> results = uniqueKeys.stream().map(key -> {
+                FileStorage fileStorage = fileStorages.get(key);
+                if (fileStorage == null) {
+                    return new FileOperationResult(key, false, "File not found");
+                }
+                String error = fileStorage.getContentHash() == null ? failedPaths.get(fileStorage.getFilePath()) : null;
+                return new FileOperationResult(key, error == null, error);
+            }).toList();
+            int deletedCount = deletedFiles.size() + sharedFiles.size();
+            int failedCount = results.size() - deletedCount;
+            logger.info("Bulk delete finished: {} files deleted, {} failed", deletedCount, failedCount);
+            storageMetrics.recordOperation(sample, StorageMetrics.DELETE_BULK, failedCount == 0);
+            return new FileBulkDeleteResponse(deletedCount, failedCount, results);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DELETE_BULK, false);
+            logger.error("Failed to delete {} files", keys.size(), e);
+            throw new StorageServiceException("Failed to delete files", e);
+        }
+    }
+
     // Copies a file within the storage
     @Override
     public void copyFile(String sourceKey, String targetDirectory) {
+        Timer.Sample sample = storageMetrics.start();
         try {
             // Retrieve file metadata (file path) from the database using the sourceKey
             FileStorage fileStorage = fileStorageRepository.findByFileKey(sourceKey).orElseThrow(() -> new StorageServiceException("Source file not found for key: " + sourceKey));
             String destinationFilePath = targetDirectory + "/" + fileUtils.generateRandomFileName(fileStorage.getFilePath());
             // Copy the file within S3 using the file path from the metadata
-            s3ClientService.copyFile(fileStorage.getFilePath(), destinationFilePath, null);
+            CopyObjectResult copyObjectResult = s3ClientService.copyFile(fileStorage.getFilePath(), destinationFilePath, getContentLength(fileStorage), null);
             // Update the storage entity with the new path
-            fileStorage.setFilePath(destinationFilePath);
-            fileStorageRepository.save(fileStorage);
+            updateCopiedFileMetadata(fileStorage, destinationFilePath, copyObjectResult);
             logger.info("File copied successfully from {} to {}", fileStorage.getFilePath(), destinationFilePath);
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY, true);
         } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY, false);
             logger.error("Failed to copy file from key: {} to destination: {}", sourceKey, targetDirectory, e);
             throw new StorageServiceException("Failed to copy file from key: " + sourceKey + " to destination: " + targetDirectory, e);
         }
     }
 
+    // Copies many files concurrently and points their metadata to the copies in batches
+    @Override
+    public FileBulkCopyResponse copyFiles(List<String> keys, String sourcePrefix, String cursor, String targetDirectory) {
+        Timer.Sample sample = storageMetrics.start();
+        try {
+            // Resolve the files to copy with a single query; a prefix is read in id order up to the configured maximum
+            List<FileStorage> sourceFiles;
+            String nextCursor = null;
+            if (keys != null && !keys.isEmpty()) {
+                sourceFiles = fileStorageRepository.findByFileKeyIn(keys);
+            } else {
+                int maxPrefixFiles = storageConfigProperties.getBulkCopy().getMaxPrefixFiles();
+                long afterId = cursor != null ? Long.parseLong(cursor) : 0;
+                sourceFiles = fileStorageRepository.findByFilePathStartingWithAndIdGreaterThanOrderByIdAsc(sourcePrefix, afterId, Limit.of(maxPrefixFiles + 1));
+                if (sourceFiles.size() > maxPrefixFiles) {
+                    sourceFiles = sourceFiles.subList(0, maxPrefixFiles);
+                    nextCursor = String.valueOf(sourceFiles.getLast().getId());
+                }
+            }
+            Map<String, FileStorage> fileStorages = sourceFiles.stream()
+                    .collect(Collectors.toMap(FileStorage::getFileKey, Function.identity(), (first, second) -> first, LinkedHashMap::new));
+            logger.info("Copying {} files to '{}'", fileStorages.size(), targetDirectory);
+
+            Map<String, String> destinationPaths = new HashMap<>();
+            Map<String, CompletableFuture<CopyObjectResult>> copies = new LinkedHashMap<>();
+            Semaphore inFlightCopies = new Semaphore(storageConfigProperties.getBulkCopy().getMaxConcurrency());
+            AtomicInteger completedCopies = new AtomicInteger();
+            int progressStep = Math.max(1, fileStorages.size() / 10);
+            try {
+                for (FileStorage fileStorage : fileStorages.values()) {
+                    String destinationFilePath = targetDirectory + "/" + fileUtils.generateRandomFileName(fileStorage.getFilePath());
+                    destinationPaths.put(fileStorage.getFileKey(), destinationFilePath);
+                    inFlightCopies.acquire();
+                    copies.put(fileStorage.getFileKey(), CompletableFuture
+                            .supplyAsync(() -> s3ClientService.copyFile(fileStorage.getFilePath(), destinationFilePath, getContentLength(fileStorage), null), applicationTaskExecutor)
+                            .whenComplete((copyObjectResult, throwable) -> {
+                                inFlightCopies.release();
+                                int completed = completedCopies.incrementAndGet();
+                                if (completed % progressStep == 0) {
+                                    logger.info("Bulk copy progress: {} of {} files done", completed, fileStorages.size());
+                                }
+                            }));
+                }
+            } finally {
+                CompletableFuture.allOf(copies.values().toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+            }
+
+            // Point the metadata of all copied files to their copies, sent as batched updates
+            Map<String, String> sourcePaths = new HashMap<>();
+            List<FileStorage> copiedFiles = new ArrayList<>();
+            List<String> releasedContentHashes = new ArrayList<>();
+            copies.forEach((key, copy) -> {
+                if (!copy.isCompletedExceptionally()) {
+                    FileStorage fileStorage = fileStorages.get(key);
+                    CopyObjectResult copyObjectResult = copy.join();
+                    sourcePaths.put(key, fileStorage.getFilePath());
+                    fileStorage.setFilePath(destinationPaths.get(key));
+                    fileStorage.setEtag(copyObjectResult.eTag());
+                    fileStorage.setLastModified(copyObjectResult.lastModified());
+                    // A copy is an object of its own and no longer shares a deduplicated object
+                    if (fileStorage.getContentHash() != null) {
+                        releasedContentHashes.add(fileStorage.getContentHash());
+                        fileStorage.setContentHash(null);
+                    }
+                    copiedFiles.add(fileStorage);
+                }
+            });
+            String metadataError = null;
+            try {
+                Set<String> unreferencedPaths = storedObjectService.save(copiedFiles, releasedContentHashes);
+                copiedFiles.forEach(fileStorage -> {
+                    fileStorageCache.invalidate(fileStorage.getFileKey());
+                    objectDiskCache.invalidate(sourcePaths.get(fileStorage.getFileKey()));
+                });
+                deleteUnreferencedObjects(unreferencedPaths);
+            } catch (Exception e) {
+                logger.error("Failed to update metadata of {} copied files, removing the copies", copiedFiles.size(), e);
+                s3ClientService.deleteFiles(copiedFiles.stream().map(FileStorage::getFilePath).toList());
+                metadataError = "Failed to update file metadata";
+            }
+
+            List<String> requestedKeys = keys != null && !keys.isEmpty() ? List.copyOf(new LinkedHashSet<>(keys)) : List.copyOf(copies.keySet());
+            List<FileOperationResult> results = new ArrayList<>(requestedKeys.size());
+            for (String key : requestedKeys) {
+                CompletableFuture<CopyObjectResult> copy = copies.get(key);
+                if (copy == null) {
+                    results.add(new FileOperationResult(key, false, "File not found"));
+                } else if (copy.isCompletedExceptionally()) {
+                    results.add(new FileOperationResult(key, false, copy.exceptionNow().getMessage()));
+                } else {
+                    results.add(new FileOperationResult(key, metadataError == null, metadataError));
+                }
+            }
+            int copiedCount = (int) results.stream().filter(FileOperationResult::isSuccess).count();
+            logger.info("Bulk copy finished: {} files copied, {} failed{}", copiedCount, results.size() - copiedCount, nextCursor != null ? ", more files to copy" : "");
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY_BULK, copiedCount == results.size());
+            return new FileBulkCopyResponse(copiedCount, results.size() - copiedCount, results, nextCursor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY_BULK, false);
+            throw new StorageServiceException("Bulk copy to " + targetDirectory + " interrupted", e);
+        } catch (Exception e) {
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY_BULK, false);
+            logger.error("Failed to copy files to destination: {}", targetDirectory, e);
+            throw new StorageServiceException("Failed to copy files to destination: " + targetDirectory, e);
+        }
+    }
+
+    // Uploads a file to the storage, releasing the calling thread while the file is transferred
+    @Override
+    public CompletableFuture<FileUploadResponse> uploadFileAsync(MultipartFile file) {
+        Timer.Sample sample = storageMetrics.start();
+        storageMetrics.uploadStarted();
+        FileCreateRequest request;
+        File tempFile = null;
+        String contentHash;
+        Optional<StoredObject> storedObject;
+        try {
+            // Convert MultipartFile to a temporary File with a generated key and path
+            SpooledUpload upload = spoolFile(file);
+            tempFile = upload.file();
+            request = upload.request();
+            contentHash = upload.contentHash();
+            storedObject = acquireStoredObject(contentHash);
+        } catch (Exception e) {
+            logger.error("Failed to upload file: {}", file.getOriginalFilename(), e);
+            deleteTempFile(tempFile);
+            storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD, false);
+            storageMetrics.uploadFinished();
+            return CompletableFuture.failedFuture(new StorageServiceException("Failed to upload file", e));
+        }
+        File uploadedFile = tempFile;
+        long contentLength = file.getSize();
+        String contentType = request.getContentType();
+        CompletableFuture<String> upload;
+        if (storedObject.isPresent()) {
+            setStoredObject(request, storedObject.get(), contentType);
+            logger.info("File '{}' has the content of '{}', skipping the upload", file.getOriginalFilename(), request.getFilePath());
+            upload = CompletableFuture.completedFuture(null);
+        } else {
+            logger.info("Uploading file '{}' ({} bytes) asynchronously to path: '{}'", file.getOriginalFilename(), contentLength, request.getFilePath());
+            upload = s3ClientService.uploadFileAsync(request.getFilePath(), uploadedFile, ObjectCannedACL.PRIVATE);
+        }
+        return upload
+                // Database work continues on the application executor, never on the threads of the S3 client
+                .thenApplyAsync(etag -> {
+                    if (storedObject.isEmpty()) {
+                        setObjectMetadata(request, uploadedFile.length(), contentType, etag);
+                        recordCompression(request);
+                        registerStoredObject(request, contentHash);
+                    }
+                    FileStorage fileStorage = saveStorageFileMetadata(request);
+                    logger.info("File uploaded successfully with key: {}", request.getFileKey());
+                    return fileStorageMapper.toResponse(fileStorage);
+                }, applicationTaskExecutor)
+                .whenComplete((response, throwable) -> {
+                    deleteTempFile(uploadedFile);
+                    storageMetrics.recordOperation(sample, StorageMetrics.UPLOAD, throwable == null);
+                    storageMetrics.uploadFinished();
+                    if (throwable == null) {
+                        storageMetrics.recordUploadedBytes(contentLength);
+                    }
+                })
+                .exceptionally(throwable -> {
+                    logger.error("Failed to upload file to path: {}", request.getFilePath(), throwable);
+                    throw new StorageServiceException("Failed to upload file", throwable);
+                });
+    }
+
+    // Deletes a file from the storage, releasing the calling thread while the file is deleted from S3
+    @Override
+    public CompletableFuture<Void> deleteFileAsync(String key) {
+        if (isTombstoneDeletion()) {
+            // Marking the row is a single update, there is nothing to wait for
+            try {
+                deleteFile(key);
+                return CompletableFuture.completedFuture(null);
+            } catch (StorageServiceException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        Timer.Sample sample = storageMetrics.start();
+        FileStorage fileStorage = fileStorageRepository.findByFileKey(key).orElse(null);
+        if (fileStorage == null) {
+            storageMetrics.recordOperation(sample, StorageMetrics.DELETE, false);
+            return CompletableFuture.failedFuture(new StorageServiceException("File not found for key: " + key));
+        }
+        // A deduplicated object is only deleted with the last file pointing to it
+        CompletableFuture<Void> deletion = fileStorage.getContentHash() != null
+                ? CompletableFuture.runAsync(() -> deleteSharedFiles(List.of(fileStorage)), applicationTaskExecutor)
+                : s3ClientService.deleteFileAsync(fileStorage.getFilePath()).thenRunAsync(() -> removeFileMetadata(fileStorage), applicationTaskExecutor);
+        return deletion
+                .thenRun(() -> logger.info("File deleted successfully with key: {}", key))
+                .whenComplete((result, throwable) -> storageMetrics.recordOperation(sample, StorageMetrics.DELETE, throwable == null))
+                .exceptionally(throwable -> {
+                    logger.error("Failed to delete file with key: {}", key, throwable);
+                    throw new StorageServiceException("Failed to delete file with key: " + key, throwable);
+                });
+    }
+
+    // Copies a file within the storage, releasing the calling thread while the file is copied in S3
+    @Override
+    public CompletableFuture<Void> copyFileAsync(String sourceKey, String targetDirectory) {
+        Timer.Sample sample = storageMetrics.start();
+        FileStorage fileStorage = fileStorageRepository.findByFileKey(sourceKey).orElse(null);
+        if (fileStorage == null) {
+            storageMetrics.recordOperation(sample, StorageMetrics.COPY, false);
+            return CompletableFuture.failedFuture(new StorageServiceException("Source file not found for key: " + sourceKey));
+        }
+        String destinationFilePath = targetDirectory + "/" + fileUtils.generateRandomFileName(fileStorage.getFilePath());
+        return s3ClientService.copyFileAsync(fileStorage.getFilePath(), destinationFilePath, null)
+                .thenAcceptAsync(copyObjectResult -> {
+                    updateCopiedFileMetadata(fileStorage, destinationFilePath, copyObjectResult);
+                    logger.info("File copied successfully from key {} to {}", sourceKey, destinationFilePath);
+                }, applicationTaskExecutor)
+                .whenComplete((result, throwable) -> storageMetrics.recordOperation(sample, StorageMetrics.COPY, throwable == null))
+                .exceptionally(throwable -> {
+                    logger.error("Failed to copy file from key: {} to destination: {}", sourceKey, targetDirectory, throwable);
+                    throw new StorageServiceException("Failed to copy file from key: " + sourceKey + " to destination: " + targetDirectory, throwable);
+                });
+    }
+
+    // Spools one file of a batch and starts its transfer, completing with the create request of the uploaded file
+    private CompletableFuture<FileCreateRequest> uploadBatchFile(MultipartFile file) {
+        storageMetrics.uploadStarted();
+        File tempFile = null;
+        try {
+            SpooledUpload upload = spoolFile(file);
+            tempFile = upload.file();
+            FileCreateRequest request = upload.request();
+            File uploadedFile = tempFile;
+            long contentLength = file.getSize();
+            String contentType = request.getContentType();
+            String contentHash = upload.contentHash();
+            Optional<StoredObject> storedObject = acquireStoredObject(contentHash);
+            if (storedObject.isPresent()) {
+                setStoredObject(request, storedObject.get(), contentType);
+                logger.debug("Batch file '{}' has the content of '{}', skipping the upload", file.getOriginalFilename(), request.getFilePath());
+                deleteTempFile(uploadedFile);
+                storageMetrics.uploadFinished();
+                return CompletableFuture.completedFuture(request);
+            }
+            logger.debug("Uploading batch file '{}' ({} bytes) to path: '{}'", file.getOriginalFilename(), contentLength, request.getFilePath());
+            return s3ClientService.uploadFileAsync(request.getFilePath(), uploadedFile, ObjectCannedACL.PRIVATE)
+                    .thenApplyAsync(etag -> {
+                        setObjectMetadata(request, uploadedFile.length(), contentType, etag);
+                        recordCompression(request);
+                        registerStoredObject(request, contentHash);
+                        return request;
+                    }, applicationTaskExecutor)
+                    .whenComplete((result, throwable) -> {
+                        deleteTempFile(uploadedFile);
+                        storageMetrics.uploadFinished();
+                    });
+        } catch (Exception e) {
+            logger.error("Failed to upload batch file: {}", file.getOriginalFilename(), e);
+            deleteTempFile(tempFile);
+            storageMetrics.uploadFinished();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     // Helper method to create StorageFileCreateRequest model.
     private FileCreateRequest generatFileCreateRequest(String originalFilename) {
         // Generate a unique key for the file
         String fileKey = fileUtils.generateFileKey();
         // Generate a unique path for the file
-        String filePath = fileUtils.generateFilePath(originalFilename);
-        return new FileCreateRequest(fileKey, filePath);
+        String filePath = fileUtils.generateFilePath(fileKey, originalFilename);
+        FileCreateRequest request = new FileCreateRequest(fileKey, filePath);
+        request.setOriginalFileName(fileUtils.normalizeOriginalFileName(originalFilename));
+        return request;
+    }
+
+    // Adds the metadata of the uploaded object to the create request
+    private void setObjectMetadata(FileCreateRequest request, long contentLength, String contentType, String etag) {
+        request.setContentLength(contentLength);
+        request.setContentType(contentType);
+        request.setEtag(etag);
+        // S3 does not return the modification time on upload; HTTP dates only have second precision
+        request.setLastModified(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    // Decides from the content type and the first bytes of an uploaded file whether it is stored compressed
+    private String selectContentEncoding(MultipartFile file, String contentType) throws IOException {
+        if (!storageConfigProperties.getCompression().isEnabled()) {
+            return null;
+        }
+        try (InputStream inputStream = new BufferedInputStream(file.getInputStream())) {
+            return contentCompressor.selectEncoding(contentType, file.getSize(), inputStream);
+        }
+    }
+
+    // Adds the content encoding of the stored object and the size of the original content to the create request
+    private void setContentEncoding(FileCreateRequest request, String contentEncoding, long decodedContentLength) {
+        request.setContentEncoding(contentEncoding);
+        request.setDecodedContentLength(contentEncoding != null ? decodedContentLength : null);
+    }
+
+    // Counts the bytes saved by storing an uploaded object compressed
+    private void recordCompression(FileCreateRequest request) {
+        if (request.getContentEncoding() != null) {
+            storageMetrics.recordCompressedBytes(request.getDecodedContentLength(), request.getContentLength());
+        }
+    }
+
+    // Opens a stored object from the local disk cache, or from S3 while it is copied to the cache
+    private InputStream openStoredFile(String filePath, long fileLength) {
+        Optional<Path> cachedFile = objectDiskCache.get(filePath);
+        if (cachedFile.isPresent()) {
+            try {
+                return Files.newInputStream(cachedFile.get());
+            } catch (IOException e) {
+                logger.debug("Cached copy of '{}' was evicted, reading it from the storage", filePath);
+            }
+        }
+        return objectDiskCache.readThrough(filePath, fileLength, s3ClientService.getFile(filePath));
+    }
+
+    // Creates the digest of the content hash when deduplication is enabled, null otherwise
+    private MessageDigest createContentDigest() {
+        return storageConfigProperties.getDeduplication().isEnabled() ? fileUtils.createContentDigest() : null;
+    }
+
+    // Hex encodes a completed content digest, null without one
+    private static String toContentHash(MessageDigest digest) {
+        return digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
+    }
+
+    // Adds a reference to the stored object with the given content, if there is one
+    private Optional<StoredObject> acquireStoredObject(String contentHash) {
+        return contentHash != null ? storedObjectService.acquire(contentHash) : Optional.empty();
+    }
+
+    // Uploads a spooled file, or points the request to the stored object with the same content instead
+    private void storeFile(FileCreateRequest request, File file, String contentHash) {
+        String contentType = request.getContentType();
+        Optional<StoredObject> storedObject = acquireStoredObject(contentHash);
+        if (storedObject.isPresent()) {
+            setStoredObject(request, storedObject.get(), contentType);
+            logger.info("Content of file with key {} is already stored at '{}', skipping the upload", request.getFileKey(), request.getFilePath());
+            return;
+        }
+        String etag = s3ClientService.uploadFile(request.getFilePath(), file, ObjectCannedACL.PRIVATE);
+        setObjectMetadata(request, file.length(), contentType, etag);
+        recordCompression(request);
+        registerStoredObject(request, contentHash);
+    }
+
+    // Registers an uploaded object as the stored object of its content; if the same content was stored
+    // concurrently, the uploaded object is deleted and the request points to the other one
+    private void registerStoredObject(FileCreateRequest request, String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        String uploadedFilePath = request.getFilePath();
+        StoredObject storedObject = storedObjectService.register(contentHash, request);
+        if (storedObject.getFilePath().equals(uploadedFilePath)) {
+            request.setContentHash(contentHash);
+            return;
+        }
+        setStoredObject(request, storedObject, request.getContentType());
+        try {
+            s3ClientService.deleteFile(uploadedFilePath);
+        } catch (Exception e) {
+            logger.warn("Failed to delete duplicate object '{}', it is left to the reconciliation", uploadedFilePath, e);
+        }
+    }
+
+    // Points the create request to a stored object holding the same content
+    private void setStoredObject(FileCreateRequest request, StoredObject storedObject, String contentType) {
+        request.setFilePath(storedObject.getFilePath());
+        request.setContentHash(storedObject.getContentHash());
+        // The stored object keeps the encoding it was uploaded with, whatever was selected for this upload
+        request.setContentEncoding(storedObject.getContentEncoding());
+        request.setDecodedContentLength(storedObject.getDecodedContentLength());
+        setObjectMetadata(request, storedObject.getContentLength(), contentType, storedObject.getEtag());
+        storageMetrics.recordDeduplicatedBytes(storedObject.getContentLength());
+    }
+
+    // Removes uploaded files whose metadata could not be saved, giving deduplicated content its references back
+    private void discardStoredFiles(List<FileCreateRequest> requests) {
+        Map<Boolean, List<FileCreateRequest>> requestsBySharing = requests.stream()
+                .collect(Collectors.partitioningBy(request -> request.getContentHash() != null));
+        s3ClientService.deleteFiles(requestsBySharing.get(false).stream().map(FileCreateRequest::getFilePath).toList());
+        if (!requestsBySharing.get(true).isEmpty()) {
+            deleteUnreferencedObjects(storedObjectService.release(requestsBySharing.get(true).stream().map(FileCreateRequest::getContentHash).toList()));
+        }
+    }
+
+    private boolean isTombstoneDeletion() {
+        return storageConfigProperties.getDeletion().getMode() == DeletionMode.TOMBSTONE;
+    }
+
+    // Marks the found files as deleted with one statement, leaving their objects to the tombstone collector
+    private FileBulkDeleteResponse markFilesDeleted(Set<String> keys, Set<String> foundKeys, Timer.Sample sample) {
+        if (!foundKeys.isEmpty()) {
+            // Files marked concurrently by another request are deleted all the same
+            fileStorageRepository.markDeleted(foundKeys, Instant.now());
+        }
+        foundKeys.forEach(fileStorageCache::invalidate);
+        int deletedCount = foundKeys.size();
+        List<FileOperationResult> results = keys.stream()
+                .map(key -> foundKeys.contains(key) ? new FileOperationResult(key, true, null) : new FileOperationResult(key, false, "File not found"))
+                .toList();
+        int failedCount = results.size() - deletedCount;
+        logger.info("Bulk delete finished: {} files marked as deleted, {} failed", deletedCount, failedCount);
+        storageMetrics.recordOperation(sample, StorageMetrics.DELETE_BULK, failedCount == 0);
+        return new FileBulkDeleteResponse(deletedCount, failedCount, results);
+    }
+
+    // Deletes the metadata of deduplicated files and the objects no longer referenced by any file
+    private void deleteSharedFiles(List<FileStorage> fileStorages) {
+        Set<String> unreferencedPaths = storedObjectService.delete(fileStorages);
+        fileStorages.forEach(fileStorage -> fileStorageCache.invalidate(fileStorage.getFileKey()));
+        deleteUnreferencedObjects(unreferencedPaths);
+    }
+
+    // Deletes objects after their last reference was removed; failures leave orphans for the reconciliation
+    private void deleteUnreferencedObjects(Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        filePaths.forEach(objectDiskCache::invalidate);
+        s3ClientService.deleteFiles(filePaths)
+                .forEach((filePath, error) -> logger.warn("Failed to delete unreferenced object '{}': {}", filePath, error));
+    }
+
+    // Removes the metadata of a deleted file and its cached copies
+    private void removeFileMetadata(FileStorage fileStorage) {
+        fileStorageRepository.delete(fileStorage);
+        fileStorageCache.invalidate(fileStorage.getFileKey());
+        objectDiskCache.invalidate(fileStorage.getFilePath());
+    }
+
+    // Points the metadata of a copied file to the new path and stores the validators of the copied object
+    private void updateCopiedFileMetadata(FileStorage fileStorage, String destinationFilePath, CopyObjectResult copyObjectResult) {
+        String sourceFilePath = fileStorage.getFilePath();
+        String contentHash = fileStorage.getContentHash();
+        fileStorage.setFilePath(destinationFilePath);
+        fileStorage.setEtag(copyObjectResult.eTag());
+        fileStorage.setLastModified(copyObjectResult.lastModified());
+        // A copy is an object of its own and no longer shares a deduplicated object
+        fileStorage.setContentHash(null);
+        Set<String> unreferencedPaths = storedObjectService.save(List.of(fileStorage), contentHash != null ? List.of(contentHash) : List.of());
+        fileStorageCache.invalidate(fileStorage.getFileKey());
+        objectDiskCache.invalidate(sourceFilePath);
+        deleteUnreferencedObjects(unreferencedPaths);
+    }
+
+    // Retrieves the size of a stored file, asking S3 for files stored before sizes were recorded
+    private long getContentLength(FileStorage fileStorage) {
+        return fileStorage.getContentLength() != null
+                ? fileStorage.getContentLength()
+                : s3ClientService.getFileMetadata(fileStorage.getFilePath()).contentLength();
+    }
+
+    // Deletes a temporary file, if it was created
+    private void deleteTempFile(File tempFile) {
+        if (!fileUtils.deleteTempFile(tempFile)) {
+            logger.warn("Temporary file '{}' could not be deleted.", tempFile.getAbsolutePath());
+        }
     }
 
     // Saves file metadata as a Storage entity
     private FileStorage saveStorageFileMetadata(FileCreateRequest request) {
         FileStorage fileStorage = fileStorageMapper.toEntity(request);
-        return fileStorageRepository.save(fileStorage);
+        try {
+            return fileStorageRepository.save(fileStorage);
+        } catch (RuntimeException e) {
+            // The reference taken for the file is given back, otherwise the shared object would never be deleted
+            if (request.getContentHash() != null) {
+                deleteUnreferencedObjects(storedObjectService.release(List.of(request.getContentHash())));
+            }
+            throw e;
+        }
     }
 }
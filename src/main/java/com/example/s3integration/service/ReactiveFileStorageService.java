@@ -0,0 +1,122 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
+import com.example.s3integration.model.http.response.storage.FileListResponse;
+import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
+import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveFileStorageService {
+
+    /**
+     * Retrieves the metadata of a file stored in the system using the provided key.
+     * The lookup is blocking and therefore runs on a worker thread, never on the event loop.
+     *
+     * @param key the unique key of the file
+     * @return the file metadata as a response object
+     */
+    Mono<FileMetadataResponse> getFileMetadata(String key);
+
+    /**
+     * Streams a file from the storage as data buffers.
+     * At most the configured number of chunks is requested ahead from S3, so a slow client slows down the
+     * S3 download instead of filling memory; cancelling the subscription aborts the S3 request.
+     *
+     * A compressed file is decompressed while it streams if requested.
+     *
+     * @param fileMetadata the metadata of the file to retrieve
+     * @param decode whether a compressed file is returned decompressed instead of as it is stored
+     * @return the contents of the file
+     */
+    Flux<DataBuffer> getFile(FileMetadataResponse fileMetadata, boolean decode);
+
+    /**
+     * Uploads a request body to the storage while it is received.
+     * Chunks are requested from the client connection only as fast as S3 accepts them.
+     * The content is stored as it is received: it is neither deduplicated nor compressed.
+     *
+     * @param content the request body
+     * @param fileName the original name of the file (provided by the client)
+     * @param contentLength the length of the request body in bytes
+     * @return the generated key for the uploaded file
+     */
+    Mono<FileUploadResponse> uploadFileStream(Flux<DataBuffer> content, String fileName, long contentLength);
+
+    /**
+     * Deletes a file from the storage using the provided key.
+     *
+     * @param key the key of the file to delete
+     * @return a Mono completed when the file and its metadata are deleted
+     */
+    Mono<Void> deleteFile(String key);
+
+    /**
+     * Copies a file within the storage to the given directory.
+     *
+     * @param sourceKey the key of the source file
+     * @param targetDirectory the directory where the file will be copied to
+     * @return a Mono completed when the file is copied and its metadata updated
+     */
+    Mono<Void> copyFile(String sourceKey, String targetDirectory);
+
+    /**
+     * Returns one page of the metadata of the files matching the search filters, ordered by creation time.
+     * The search is blocking and runs on a worker thread; unlike the servlet API, the page is collected
+     * before it is written, so its size is bounded by the page limit.
+     *
+     * @param request the search filters, the page size and the cursor of the page
+     * @return the metadata of the files of the page and the cursor of the next page
+     */
+    Mono<FileListResponse> searchFiles(FileSearchRequest request);
+
+    /**
+     * Issues a short-lived URL the client uploads a new file to directly, on a worker thread.
+     *
+     * @param fileName the original name of the file (provided by the client)
+     * @param contentType the content type declared by the client, may be null
+     * @return the generated key of the file and the URL, method and headers of the upload request
+     */
+    Mono<PresignedUrlResponse> createPresignedUpload(String fileName, String contentType);
+
+    /**
+     * Registers a file uploaded through a presigned URL, on a worker thread.
+     *
+     * @param key the key returned when the upload URL was issued
+     * @return the key of the registered file
+     */
+    Mono<FileUploadResponse> completePresignedUpload(String key);
+
+    /**
+     * Issues a short-lived URL the client downloads a file from directly, on a worker thread.
+     *
+     * @param key the key of the file to download
+     * @return the URL and method of the download request
+     */
+    Mono<PresignedUrlResponse> createPresignedDownload(String key);
+
+    /**
+     * Deletes many files from the storage at once, on a worker thread.
+     *
+     * @param keys the keys of the files to delete
+     * @return the number of deleted and failed files and the outcome for every key
+     */
+    Mono<FileBulkDeleteResponse> deleteFiles(List<String> keys);
+
+    /**
+     * Copies many files into a target directory at once, selected either by key or by a path prefix, on a worker thread.
+     *
+     * @param keys the keys of the files to copy, or null to select the files by prefix
+     * @param sourcePrefix the path prefix of the files to copy, used when no keys are given
+     * @param cursor the cursor returned by the previous copy of the same prefix, or null to start with the first file
+     * @param targetDirectory the directory where the files will be copied to
+     * @return the number of copied and failed files, the outcome for every key and the cursor of the next copy, if any
+     */
+    Mono<FileBulkCopyResponse> copyFiles(List<String> keys, String sourcePrefix, String cursor, String targetDirectory);
+}
@@ -0,0 +1,190 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import com.example.s3integration.exception.custom.storage.StorageServiceException;
+import com.example.s3integration.mapper.FileStorageMapper;
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+import com.example.s3integration.model.http.request.storage.FileSearchRequest;
+import com.example.s3integration.model.http.response.storage.FileBulkCopyResponse;
+import com.example.s3integration.model.http.response.storage.FileBulkDeleteResponse;
+import com.example.s3integration.model.http.response.storage.FileListResponse;
+import com.example.s3integration.model.http.response.storage.FileMetadataResponse;
+import com.example.s3integration.model.http.response.storage.FileUploadResponse;
+import com.example.s3integration.model.http.response.storage.PresignedUrlResponse;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.util.ContentCompressor;
+import com.example.s3integration.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "async")
+public class ReactiveFileStorageServiceImpl implements ReactiveFileStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFileStorageServiceImpl.class);
+
+    private final FileUtils fileUtils;
+    private final FileStorageService fileStorageService;
+    private final S3ReactiveClientService s3ReactiveClientService;
+    private final FileStorageMapper fileStorageMapper;
+    private final FileStorageRepository fileStorageRepository;
+    private final StorageConfigProperties storageConfigProperties;
+    private final ContentCompressor contentCompressor;
+
+    // Retrieves file metadata from the cache or the database on a worker thread
+    @Override
+    public Mono<FileMetadataResponse> getFileMetadata(String key) {
+        return Mono.fromCallable(() -> fileStorageService.getFileMetadata(key))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Streams a file from S3 with bounded demand, decompressing it on the fly if requested
+    @Override
+    public Flux<DataBuffer> getFile(FileMetadataResponse fileMetadata, boolean decode) {
+        Flux<ByteBuffer> content = s3ReactiveClientService.getFile(fileMetadata.getFilePath())
+                .limitRate(storageConfigProperties.getReactive().getPrefetch());
+        return (decode ? contentCompressor.decode(content, fileMetadata.getContentEncoding()) : content)
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .doOnCancel(() -> logger.debug("Download of file with key '{}' cancelled by the client", fileMetadata.getFileKey()))
+                .onErrorMap(throwable -> {
+                    logger.error("Failed to download file with key: {}", fileMetadata.getFileKey(), throwable);
+                    return new StorageServiceException("Failed to download file with key: " + fileMetadata.getFileKey(), throwable);
+                });
+    }
+
+    // Pipes a request body to S3 and saves the metadata once the object is stored
+    @Override
+    public Mono<FileUploadResponse> uploadFileStream(Flux<DataBuffer> content, String fileName, long contentLength) {
+        return Mono.defer(() -> {
+                    // Generate file key and path, and create request model
+                    FileCreateRequest request = generateFileCreateRequest(fileName);
+                    String contentType = fileUtils.detectContentType(fileName, null);
+                    logger.info("Uploading streamed file ({} bytes) reactively to path: '{}'", contentLength, request.getFilePath());
+                    Flux<ByteBuffer> body = content
+                            .limitRate(storageConfigProperties.getReactive().getPrefetch())
+                            .map(this::toByteBuffer)
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+                    return s3ReactiveClientService.uploadFile(request.getFilePath(), contentLength, contentType, body, ObjectCannedACL.PRIVATE)
+                            // The metadata save is blocking JPA work, so it leaves the event loop
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(etag -> {
+                                setObjectMetadata(request, contentLength, contentType, etag);
+                                FileStorage fileStorage = fileStorageRepository.save(fileStorageMapper.toEntity(request));
+                                logger.info("Streamed file uploaded successfully with key: '{}'", request.getFileKey());
+                                return fileStorageMapper.toResponse(fileStorage);
+                            });
+                })
+                .onErrorMap(throwable -> {
+                    logger.error("Failed to upload file via reactive stream", throwable);
+                    return new StorageServiceException("Failed to upload file via stream", throwable);
+                });
+    }
+
+    // Deletes a file, the metadata lookup runs on a worker thread and the S3 request does not block
+    @Override
+    public Mono<Void> deleteFile(String key) {
+        return Mono.fromCallable(() -> fileStorageService.deleteFileAsync(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::fromFuture);
+    }
+
+    // Copies a file, the metadata lookup runs on a worker thread and the S3 request does not block
+    @Override
+    public Mono<Void> copyFile(String sourceKey, String targetDirectory) {
+        return Mono.fromCallable(() -> fileStorageService.copyFileAsync(sourceKey, targetDirectory))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::fromFuture);
+    }
+
+    // Collects one page of the search on a worker thread
+    @Override
+    public Mono<FileListResponse> searchFiles(FileSearchRequest request) {
+        return Mono.fromCallable(() -> {
+                    List<FileMetadataResponse> files = new ArrayList<>();
+                    String nextCursor = fileStorageService.searchFiles(request, files::add);
+                    return new FileListResponse(files, nextCursor);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Presigns the upload on a worker thread, like the other calls of the blocking service
+    @Override
+    public Mono<PresignedUrlResponse> createPresignedUpload(String fileName, String contentType) {
+        return Mono.fromCallable(() -> fileStorageService.createPresignedUpload(fileName, contentType))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Checks the uploaded object and registers it on a worker thread
+    @Override
+    public Mono<FileUploadResponse> completePresignedUpload(String key) {
+        return Mono.fromCallable(() -> fileStorageService.completePresignedUpload(key))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Presigns the download on a worker thread, the metadata lookup is blocking
+    @Override
+    public Mono<PresignedUrlResponse> createPresignedDownload(String key) {
+        return Mono.fromCallable(() -> fileStorageService.createPresignedDownload(key))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Runs the bulk delete on a worker thread, it waits for its parallel S3 batches
+    @Override
+    public Mono<FileBulkDeleteResponse> deleteFiles(List<String> keys) {
+        return Mono.fromCallable(() -> fileStorageService.deleteFiles(keys))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Runs the bulk copy on a worker thread, it waits for its concurrent copies
+    @Override
+    public Mono<FileBulkCopyResponse> copyFiles(List<String> keys, String sourcePrefix, String cursor, String targetDirectory) {
+        return Mono.fromCallable(() -> fileStorageService.copyFiles(keys, sourcePrefix, cursor, targetDirectory))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Helper method to create FileCreateRequest model
+    private FileCreateRequest generateFileCreateRequest(String originalFilename) {
+        String fileKey = fileUtils.generateFileKey();
+        FileCreateRequest request = new FileCreateRequest(fileKey, fileUtils.generateFilePath(fileKey, originalFilename));
+        request.setOriginalFileName(fileUtils.normalizeOriginalFileName(originalFilename));
+        return request;
+    }
+
+    // Adds the metadata of the uploaded object to the create request
+    private void setObjectMetadata(FileCreateRequest request, long contentLength, String contentType, String etag) {
+        request.setContentLength(contentLength);
+        request.setContentType(contentType);
+        request.setEtag(etag);
+        // S3 does not return the modification time on upload; HTTP dates only have second precision
+        request.setLastModified(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    // Copies a request body chunk to a heap buffer the S3 client can hold on to, and releases the pooled original
+    private ByteBuffer toByteBuffer(DataBuffer dataBuffer) {
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(dataBuffer.readableByteCount());
+            dataBuffer.toByteBuffer(byteBuffer);
+            return byteBuffer;
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+}
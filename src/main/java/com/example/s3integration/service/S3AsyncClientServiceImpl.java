@@ -0,0 +1,90 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.config.properties.S3ConfigProperties;
+import com.example.s3integration.exception.custom.s3.S3ServiceException;
+import com.example.s3integration.util.UploadBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * S3ClientService implementation whose asynchronous operations run on the non-blocking {@link S3AsyncClient},
+ * selected with {@code aws.s3.client-type=async}. No thread is held while a request is in flight, so a few
+ * NIO threads can keep hundreds of transfers going. Blocking operations are inherited from {@link S3ClientServiceImpl}.
+ *
+ * Downloads are among them: the servlet API writes them to a blocking output stream, so each one holds an async
+ * request thread until its last byte is sent. Non-blocking downloads are served by the reactive API.
+ */
+@Service
+@ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "async")
+public class S3AsyncClientServiceImpl extends S3ClientServiceImpl {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3AsyncClientServiceImpl.class);
+
+    private final S3AsyncClient s3AsyncClient;
+    private final S3ConfigProperties s3ConfigProperties;
+
+    public S3AsyncClientServiceImpl(S3Client s3Client, S3AsyncClient s3AsyncClient, S3Presigner s3Presigner, S3ConfigProperties s3ConfigProperties,
+                                    UploadBufferPool uploadBufferPool, ExecutorService s3TransferExecutor, ExecutorService s3BlockingExecutor) {
+        super(s3Client, s3Presigner, s3ConfigProperties, uploadBufferPool, s3TransferExecutor, s3BlockingExecutor);
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3ConfigProperties = s3ConfigProperties;
+    }
+
+    // Uploads a file to S3 without blocking, large files are sent as a multipart upload by the async client
+    @Override
+    public CompletableFuture<String> uploadFileAsync(String filePath, File file, ObjectCannedACL cannedAccessControlList) {
+        return s3AsyncClient.putObject(PutObjectRequest.builder()
+                                .bucket(s3ConfigProperties.getBucketName())
+                                .key(filePath)
+                                .acl(cannedAccessControlList)
+                                .build(),
+                        AsyncRequestBody.fromFile(file.toPath()))
+                .thenApply(PutObjectResponse::eTag)
+                .exceptionally(throwable -> {
+                    logger.error("Async Upload Error for file {} to bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), throwable.getMessage(), throwable);
+                    throw new S3ServiceException("Upload Error for file: " + filePath, throwable);
+                });
+    }
+
+    // Copies a file within S3 without blocking
+    @Override
+    public CompletableFuture<CopyObjectResult> copyFileAsync(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList) {
+        return s3AsyncClient.copyObject(CopyObjectRequest.builder()
+                        .sourceBucket(s3ConfigProperties.getBucketName())
+                        .sourceKey(sourceFilePath)
+                        .destinationBucket(s3ConfigProperties.getBucketName())
+                        .destinationKey(destinationFilePath)
+                        .acl(cannedAccessControlList)
+                        .build())
+                .thenApply(CopyObjectResponse::copyObjectResult)
+                .exceptionally(throwable -> {
+                    logger.error("Async Copy Error from {} to {} in bucket {}: {}", sourceFilePath, destinationFilePath, s3ConfigProperties.getBucketName(), throwable.getMessage(), throwable);
+                    throw new S3ServiceException("Copy Error from " + sourceFilePath + " to " + destinationFilePath, throwable);
+                });
+    }
+
+    // Deletes a file from S3 without blocking
+    @Override
+    public CompletableFuture<Void> deleteFileAsync(String filePath) {
+        return s3AsyncClient.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .build())
+                .<Void>thenApply(response -> null)
+                .exceptionally(throwable -> {
+                    logger.error("Async Delete Error for file {} in bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), throwable.getMessage(), throwable);
+                    throw new S3ServiceException("Delete Error for file: " + filePath, throwable);
+                });
+    }
+}
@@ -1,10 +1,23 @@
 package com.example.s3integration.service;
 
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.CopyObjectResult;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface S3ClientService {
 
@@ -16,14 +29,57 @@ public interface S3ClientService {
      */
     ResponseInputStream<GetObjectResponse> getFile(String filePath);
 
+    /**
+     * Downloads a byte range of a file from the specified path in the S3 bucket.
+     *
+     * @param filePath the path of the file in the S3 bucket.
+     * @param start the position of the first byte to download.
+     * @param end the position of the last byte to download (inclusive).
+     * @return a stream containing the requested bytes of the file.
+     */
+    ResponseInputStream<GetObjectResponse> getFile(String filePath, long start, long end);
+
+    /**
+     * Downloads a whole file by fetching consecutive byte ranges in parallel and writing them to the
+     * output stream in order. At most the configured number of ranges is buffered in memory at a time.
+     *
+     * @param filePath the path of the file in the S3 bucket.
+     * @param contentLength the size of the file in bytes.
+     * @param outputStream the stream the file content is written to; it is not closed.
+     */
+    void downloadFile(String filePath, long contentLength, OutputStream outputStream);
+
+    /**
+     * Retrieves the metadata of a file (size, content type, ETag) without downloading its content.
+     *
+     * @param filePath the path of the file in the S3 bucket.
+     * @return the metadata of the file.
+     */
+    HeadObjectResponse getFileMetadata(String filePath);
+
     /**
      * Uploads a file to the specified path in the S3 bucket.
+     * Files above the configured multipart threshold are split into parts that are uploaded concurrently,
+     * with failed parts retried individually and the whole upload aborted if a part keeps failing.
      *
      * @param filePath the path where the file will be uploaded in the S3 bucket.
      * @param file the file to upload.
      * @param cannedAccessControlList the access control settings for the uploaded file.
+     * @return the ETag of the uploaded file.
      */
-    void uploadFile(String filePath, File file, ObjectCannedACL cannedAccessControlList);
+    String uploadFile(String filePath, File file, ObjectCannedACL cannedAccessControlList);
+
+    /**
+     * Uploads the content of a stream of unknown length to the specified path in the S3 bucket.
+     * The stream is read into pooled part buffers and sent as a multipart upload, so nothing is written to local disk.
+     * Content that fits into a single part is sent with a single PUT request instead.
+     *
+     * @param filePath the path where the file will be uploaded in the S3 bucket.
+     * @param inputStream the stream to upload; it is read to the end but not closed.
+     * @param cannedAccessControlList the access control settings for the uploaded file.
+     * @return the ETag of the uploaded file.
+     */
+    String uploadFile(String filePath, InputStream inputStream, ObjectCannedACL cannedAccessControlList);
 
     /**
      * Copies a file within the S3 bucket from one path to another.
@@ -31,8 +87,22 @@ public interface S3ClientService {
      * @param sourceFilePath the path of the source file in the S3 bucket.
      * @param destinationFilePath the path of the destination file in the S3 bucket.
      * @param cannedAccessControlList the access control settings for the copied file.
+     * @return the ETag and last modification time of the copied file.
      */
-    void copyFile(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList);
+    CopyObjectResult copyFile(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList);
+
+    /**
+     * Copies a file of known size within the S3 bucket from one path to another.
+     * Files above the configured copy threshold are copied as a multipart upload whose parts are copied
+     * server-side as byte ranges in parallel, which also works beyond the 5GB limit of a single copy.
+     *
+     * @param sourceFilePath the path of the source file in the S3 bucket.
+     * @param destinationFilePath the path of the destination file in the S3 bucket.
+     * @param contentLength the size of the source file in bytes.
+     * @param cannedAccessControlList the access control settings for the copied file.
+     * @return the ETag and last modification time of the copied file.
+     */
+    CopyObjectResult copyFile(String sourceFilePath, String destinationFilePath, long contentLength, ObjectCannedACL cannedAccessControlList);
 
     /**
      * Deletes a file from the specified path in the S3 bucket.
@@ -40,4 +110,84 @@ public interface S3ClientService {
      * @param filePath the path of the file to be deleted in the S3 bucket.
      */
     void deleteFile(String filePath);
+
+    /**
+     * Deletes many files from the S3 bucket with DeleteObjects requests of up to 1000 keys each,
+     * sent in parallel. A failing batch or object does not stop the others.
+     *
+     * @param filePaths the paths of the files to be deleted in the S3 bucket.
+     * @return the error message of every path that could not be deleted; empty if all were deleted.
+     */
+    Map<String, String> deleteFiles(Collection<String> filePaths);
+
+    /**
+     * Lists the directories directly below a prefix, i.e. the distinct key prefixes up to the next {@code /}.
+     *
+     * @param prefix the prefix to list, ending with {@code /}.
+     * @return the directory prefixes, each ending with {@code /}, in key order.
+     */
+    List<String> listDirectories(String prefix);
+
+    /**
+     * Lists the files below a prefix in key order. Pages of up to 1000 keys are fetched lazily while the
+     * stream is consumed, so only the current page is held in memory. S3 errors surface while consuming the stream.
+     *
+     * @param prefix the prefix to list.
+     * @param recursive whether files in directories below the prefix are included.
+     * @return the files below the prefix, ordered by the UTF-8 bytes of their keys.
+     */
+    Stream<S3Object> listFiles(String prefix, boolean recursive);
+
+    /**
+     * Creates a URL that allows a client to upload a file to the specified path directly, without credentials.
+     * The content type is part of the signature, so the client must send the same {@code Content-Type} header.
+     *
+     * @param filePath the path where the file will be uploaded in the S3 bucket.
+     * @param contentType the content type the client must upload the file with.
+     * @param expiration how long the URL can be used.
+     * @return the presigned PUT request, including the headers the client must send.
+     */
+    PresignedPutObjectRequest presignUpload(String filePath, String contentType, Duration expiration);
+
+    /**
+     * Creates a URL that allows a client to download a file directly, without credentials.
+     * The response of S3 carries the given content type and an attachment disposition with the file name,
+     * and the content encoding of a compressed object, so that clients decompress it themselves.
+     *
+     * @param filePath the path of the file in the S3 bucket.
+     * @param fileName the file name offered to the client.
+     * @param contentType the content type of the response.
+     * @param contentEncoding the content encoding of the stored object, or null.
+     * @param expiration how long the URL can be used.
+     * @return the presigned GET request.
+     */
+    PresignedGetObjectRequest presignDownload(String filePath, String fileName, String contentType, String contentEncoding, Duration expiration);
+
+    /**
+     * Uploads a file to the specified path in the S3 bucket without blocking the calling thread.
+     *
+     * @param filePath the path where the file will be uploaded in the S3 bucket.
+     * @param file the file to upload.
+     * @param cannedAccessControlList the access control settings for the uploaded file.
+     * @return a future completed with the ETag of the uploaded file.
+     */
+    CompletableFuture<String> uploadFileAsync(String filePath, File file, ObjectCannedACL cannedAccessControlList);
+
+    /**
+     * Copies a file within the S3 bucket without blocking the calling thread.
+     *
+     * @param sourceFilePath the path of the source file in the S3 bucket.
+     * @param destinationFilePath the path of the destination file in the S3 bucket.
+     * @param cannedAccessControlList the access control settings for the copied file.
+     * @return a future completed with the ETag and last modification time of the copied file.
+     */
+    CompletableFuture<CopyObjectResult> copyFileAsync(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList);
+
+    /**
+     * Deletes a file from the S3 bucket without blocking the calling thread.
+     *
+     * @param filePath the path of the file to be deleted in the S3 bucket.
+     * @return a future completed when the file is deleted.
+     */
+    CompletableFuture<Void> deleteFileAsync(String filePath);
 }
@@ -2,25 +2,66 @@ package com.example.s3integration.service;
 
 import com.example.s3integration.config.properties.S3ConfigProperties;
 import com.example.s3integration.exception.custom.s3.S3ServiceException;
+import com.example.s3integration.util.FileChannelRangeInputStream;
+import com.example.s3integration.util.UploadBufferPool;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "sync", matchIfMissing = true)
 public class S3ClientServiceImpl implements S3ClientService {
 
     private static final Logger logger = LoggerFactory.getLogger(S3ClientServiceImpl.class);
 
+    private static final long MEGABYTE = 1024 * 1024;
+    // Maximum number of keys of a single DeleteObjects request
+    private static final int DELETE_OBJECTS_MAX_KEYS = 1000;
+
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
     private final S3ConfigProperties s3ConfigProperties;
+    private final UploadBufferPool uploadBufferPool;
+    private final ExecutorService s3TransferExecutor;
+    private final ExecutorService s3BlockingExecutor;
 
     // Downloads a file from S3
     public ResponseInputStream<GetObjectResponse> getFile(String filePath) {
@@ -35,37 +76,145 @@ public class S3ClientServiceImpl implements S3ClientService {
         }
     }
 
-    // Uploads a file to S3
-    public void uploadFile(String filePath, File file, ObjectCannedACL cannedAccessControlList) {
+    // Downloads a byte range of a file from S3
+    public ResponseInputStream<GetObjectResponse> getFile(String filePath, long start, long end) {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(s3ConfigProperties.getBucketName())
+                    .key(filePath)
+                    .range("bytes=" + start + "-" + end)
+                    .build());
+        } catch (Exception e) {
+            logger.error("Ranged Download Error for file {} ({}-{}) in bucket {}: {}", filePath, start, end, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("Ranged Download Error for file: " + filePath, e);
+        }
+    }
+
+    // Downloads a file as parallel byte ranges and writes them to the output stream in order
+    public void downloadFile(String filePath, long contentLength, OutputStream outputStream) {
+        S3ConfigProperties.Download download = s3ConfigProperties.getDownload();
+        long partSize = download.getPartSize().toBytes();
+        int partCount = Math.toIntExact((contentLength + partSize - 1) / partSize);
+        // Ranges fetched ahead of the one being written, bounded so that memory stays at concurrency * partSize
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(download.getMaxConcurrency());
+        int nextPart = 0;
+        try {
+            for (int writtenParts = 0; writtenParts < partCount; writtenParts++) {
+                while (nextPart < partCount && window.size() < download.getMaxConcurrency()) {
+                    long start = nextPart * partSize;
+                    long end = Math.min(start + partSize, contentLength) - 1;
+                    window.addLast(CompletableFuture.supplyAsync(() -> readRange(filePath, start, end), s3TransferExecutor));
+                    nextPart++;
+                }
+                outputStream.write(window.removeFirst().join());
+            }
+            outputStream.flush();
+        } catch (Exception e) {
+            window.forEach(future -> future.cancel(false));
+            logger.error("Parallel Download Error for file {} in bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("Parallel Download Error for file: " + filePath, e);
+        }
+    }
+
+    // Retrieves the metadata of a file in S3
+    public HeadObjectResponse getFileMetadata(String filePath) {
         try {
-            s3Client.putObject(PutObjectRequest.builder()
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(s3ConfigProperties.getBucketName())
+                    .key(filePath)
+                    .build());
+        } catch (Exception e) {
+            logger.error("Metadata Error for file {} in bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("Metadata Error for file: " + filePath, e);
+        }
+    }
+
+    // Uploads a file to S3, using a parallel multipart upload for large files
+    public String uploadFile(String filePath, File file, ObjectCannedACL cannedAccessControlList) {
+        try {
+            if (file.length() >= s3ConfigProperties.getMultipart().getThreshold().toBytes()) {
+                return uploadFileInParts(filePath, file, cannedAccessControlList);
+            }
+            return s3Client.putObject(PutObjectRequest.builder()
                             .bucket(s3ConfigProperties.getBucketName())
                             .key(filePath)
                             .acl(cannedAccessControlList)
                             .build(),
-                    RequestBody.fromFile(file.toPath()));
+                    RequestBody.fromFile(file.toPath())).eTag();
         } catch (Exception e) {
             logger.error("Upload Error for file {} to bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
             throw new S3ServiceException("Upload Error for file: " + filePath, e);
         }
     }
 
+    // Uploads a stream to S3 part by part, without spooling it to disk
+    public String uploadFile(String filePath, InputStream inputStream, ObjectCannedACL cannedAccessControlList) {
+        byte[] buffer = null;
+        String uploadId = null;
+        try {
+            buffer = uploadBufferPool.acquire();
+            int length = inputStream.readNBytes(buffer, 0, buffer.length);
+            if (length < buffer.length) {
+                // The whole stream fits into one buffer, a single PUT is enough
+                return s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(s3ConfigProperties.getBucketName())
+                                .key(filePath)
+                                .acl(cannedAccessControlList)
+                                .build(),
+                        fromBuffer(buffer, length)).eTag();
+            }
+            uploadId = createMultipartUpload(filePath, cannedAccessControlList);
+            List<CompletedPart> completedParts = new ArrayList<>();
+            int partNumber = 1;
+            while (length > 0) {
+                completedParts.add(uploadPart(filePath, uploadId, partNumber++, fromBuffer(buffer, length)));
+                length = inputStream.readNBytes(buffer, 0, buffer.length);
+            }
+            logger.debug("Streamed {} parts to file {}", completedParts.size(), filePath);
+            return completeMultipartUpload(filePath, uploadId, completedParts);
+        } catch (Exception e) {
+            if (uploadId != null) {
+                abortMultipartUpload(filePath, uploadId);
+            }
+            logger.error("Stream Upload Error for file {} to bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("Stream Upload Error for file: " + filePath, e);
+        } finally {
+            if (buffer != null) {
+                uploadBufferPool.release(buffer);
+            }
+        }
+    }
+
     // Copies a file within S3
-    public void copyFile(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList) {
+    public CopyObjectResult copyFile(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList) {
         try {
-            s3Client.copyObject(CopyObjectRequest.builder()
+            return s3Client.copyObject(CopyObjectRequest.builder()
                     .sourceBucket(s3ConfigProperties.getBucketName())
                     .sourceKey(sourceFilePath)
                     .destinationBucket(s3ConfigProperties.getBucketName())
                     .destinationKey(destinationFilePath)
                     .acl(cannedAccessControlList)
-                    .build());
+                    .build())
+                    .copyObjectResult();
         } catch (Exception e) {
             logger.error("Copy Error from {} to {} in bucket {}: {}", sourceFilePath, destinationFilePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
             throw new S3ServiceException("Copy Error from " + sourceFilePath + " to " + destinationFilePath, e);
         }
     }
 
+    // Copies a file within S3, large files are copied as parallel part ranges
+    public CopyObjectResult copyFile(String sourceFilePath, String destinationFilePath, long contentLength, ObjectCannedACL cannedAccessControlList) {
+        if (contentLength < s3ConfigProperties.getMultipart().getCopyThreshold().toBytes()) {
+            return copyFile(sourceFilePath, destinationFilePath, cannedAccessControlList);
+        }
+        try {
+            return copyFileInParts(sourceFilePath, destinationFilePath, contentLength, cannedAccessControlList);
+        } catch (Exception e) {
+            logger.error("Multipart Copy Error from {} to {} in bucket {}: {}", sourceFilePath, destinationFilePath, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("Copy Error from " + sourceFilePath + " to " + destinationFilePath, e);
+        }
+    }
+
     // Deletes a file from S3
     public void deleteFile(String filePath) {
         try {
@@ -78,4 +227,308 @@ public class S3ClientServiceImpl implements S3ClientService {
             throw new S3ServiceException("Delete Error for file: " + filePath, e);
         }
     }
+
+    // Deletes files from S3 in DeleteObjects batches that run in parallel on the shared transfer executor
+    public Map<String, String> deleteFiles(Collection<String> filePaths) {
+        List<String> paths = List.copyOf(filePaths);
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+        for (int from = 0; from < paths.size(); from += DELETE_OBJECTS_MAX_KEYS) {
+            List<String> batch = paths.subList(from, Math.min(from + DELETE_OBJECTS_MAX_KEYS, paths.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> deleteObjects(batch), s3TransferExecutor));
+        }
+        Map<String, String> failures = new HashMap<>();
+        futures.forEach(future -> failures.putAll(future.join()));
+        logger.debug("Deleted {} of {} files in {} batches", paths.size() - failures.size(), paths.size(), futures.size());
+        return failures;
+    }
+
+    // Lists the directory prefixes directly below a prefix
+    public List<String> listDirectories(String prefix) {
+        try {
+            return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                            .bucket(s3ConfigProperties.getBucketName())
+                            .prefix(prefix)
+                            .delimiter("/")
+                            .build())
+                    .commonPrefixes().stream()
+                    .map(CommonPrefix::prefix)
+                    .toList();
+        } catch (Exception e) {
+            logger.error("List Error for prefix {} in bucket {}: {}", prefix, s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            throw new S3ServiceException("List Error for prefix: " + prefix, e);
+        }
+    }
+
+    // Streams the files below a prefix, fetching the next page only when the current one is consumed
+    public Stream<S3Object> listFiles(String prefix, boolean recursive) {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(s3ConfigProperties.getBucketName())
+                .prefix(prefix);
+        if (!recursive) {
+            request.delimiter("/");
+        }
+        return s3Client.listObjectsV2Paginator(request.build()).contents().stream();
+    }
+
+    // Signs an upload URL for a file path
+    public PresignedPutObjectRequest presignUpload(String filePath, String contentType, Duration expiration) {
+        return s3Presigner.presignPutObject(builder -> builder
+                .signatureDuration(expiration)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .contentType(contentType)
+                        .build()));
+    }
+
+    // Signs a download URL for a file path
+    public PresignedGetObjectRequest presignDownload(String filePath, String fileName, String contentType, String contentEncoding, Duration expiration) {
+        return s3Presigner.presignGetObject(builder -> builder
+                .signatureDuration(expiration)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .responseContentType(contentType)
+                        .responseContentDisposition(ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                        .responseContentEncoding(contentEncoding)
+                        .build()));
+    }
+
+    // Runs the blocking upload on the S3 blocking executor, so the calling thread is released
+    public CompletableFuture<String> uploadFileAsync(String filePath, File file, ObjectCannedACL cannedAccessControlList) {
+        return CompletableFuture.supplyAsync(() -> uploadFile(filePath, file, cannedAccessControlList), s3BlockingExecutor);
+    }
+
+    // Runs the blocking copy on the S3 blocking executor, so the calling thread is released
+    public CompletableFuture<CopyObjectResult> copyFileAsync(String sourceFilePath, String destinationFilePath, ObjectCannedACL cannedAccessControlList) {
+        return CompletableFuture.supplyAsync(() -> copyFile(sourceFilePath, destinationFilePath, cannedAccessControlList), s3BlockingExecutor);
+    }
+
+    // Runs the blocking delete on the S3 blocking executor, so the calling thread is released
+    public CompletableFuture<Void> deleteFileAsync(String filePath) {
+        return CompletableFuture.runAsync(() -> deleteFile(filePath), s3BlockingExecutor);
+    }
+
+    // Deletes one batch of files and returns the error message of every file that was not deleted
+    private Map<String, String> deleteObjects(List<String> filePaths) {
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(s3ConfigProperties.getBucketName())
+                    .delete(Delete.builder()
+                            .objects(filePaths.stream().map(filePath -> ObjectIdentifier.builder().key(filePath).build()).toList())
+                            // Quiet mode only reports the keys that failed
+                            .quiet(true)
+                            .build())
+                    .build());
+            return response.errors().stream()
+                    .collect(Collectors.toMap(S3Error::key, error -> error.code() + ": " + error.message(), (first, second) -> first));
+        } catch (Exception e) {
+            logger.error("Bulk Delete Error for {} files in bucket {}: {}", filePaths.size(), s3ConfigProperties.getBucketName(), e.getMessage(), e);
+            return filePaths.stream().collect(Collectors.toMap(filePath -> filePath, filePath -> String.valueOf(e.getMessage()), (first, second) -> first));
+        }
+    }
+
+    // Starts a multipart upload and returns its upload id
+    private String createMultipartUpload(String filePath, ObjectCannedACL cannedAccessControlList) {
+        return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .acl(cannedAccessControlList)
+                        .build())
+                .uploadId();
+    }
+
+    // Splits a file into parts and uploads them concurrently on the shared transfer executor
+    private String uploadFileInParts(String filePath, File file, ObjectCannedACL cannedAccessControlList) throws IOException, InterruptedException {
+        long fileSize = file.length();
+        long partSize = calculatePartSize(fileSize);
+        int partCount = Math.toIntExact((fileSize + partSize - 1) / partSize);
+        int concurrency = Math.min(s3ConfigProperties.getMultipart().getMaxConcurrency(), partCount);
+        logger.debug("Uploading file {} ({} bytes) in {} parts of {} bytes with concurrency {}", filePath, fileSize, partCount, partSize, concurrency);
+
+        String uploadId = createMultipartUpload(filePath, cannedAccessControlList);
+        List<CompletableFuture<CompletedPart>> futures = new ArrayList<>(partCount);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            try {
+                // Limits the parts of this upload that are in flight, and therefore the share of the executor it takes
+                Semaphore inFlightParts = new Semaphore(concurrency);
+                for (int partIndex = 0; partIndex < partCount; partIndex++) {
+                    int partNumber = partIndex + 1;
+                    long position = partIndex * partSize;
+                    long length = Math.min(partSize, fileSize - position);
+                    inFlightParts.acquire();
+                    if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                        break;
+                    }
+                    futures.add(CompletableFuture
+                            .supplyAsync(() -> transferPartWithRetry(filePath, partNumber,
+                                    () -> uploadPart(filePath, uploadId, partNumber,
+                                            RequestBody.fromContentProvider(() -> new FileChannelRangeInputStream(channel, position, length), length, MediaType.APPLICATION_OCTET_STREAM_VALUE))),
+                                    s3TransferExecutor)
+                            .whenComplete((completedPart, throwable) -> inFlightParts.release()));
+                }
+            } finally {
+                // The channel must stay open until every submitted part is done
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+            }
+            List<CompletedPart> completedParts = futures.stream().map(CompletableFuture::join).toList();
+            return completeMultipartUpload(filePath, uploadId, completedParts);
+        } catch (Exception e) {
+            abortMultipartUpload(filePath, uploadId);
+            throw e;
+        }
+    }
+
+    // Copies a file as a multipart upload whose parts are copied server-side concurrently on the shared transfer executor
+    private CopyObjectResult copyFileInParts(String sourceFilePath, String destinationFilePath, long contentLength, ObjectCannedACL cannedAccessControlList) throws InterruptedException {
+        // Nothing passes through this service, so copy parts can be much larger than upload parts
+        long partSize = Math.max(calculatePartSize(contentLength), s3ConfigProperties.getMultipart().getCopyPartSize().toBytes());
+        int partCount = Math.toIntExact((contentLength + partSize - 1) / partSize);
+        int concurrency = Math.min(s3ConfigProperties.getMultipart().getMaxConcurrency(), partCount);
+        logger.debug("Copying file {} ({} bytes) to {} in {} parts of {} bytes with concurrency {}", sourceFilePath, contentLength, destinationFilePath, partCount, partSize, concurrency);
+
+        // Unlike CopyObject, a multipart upload does not take over the headers and user metadata of the source
+        HeadObjectResponse source = getFileMetadata(sourceFilePath);
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(destinationFilePath)
+                        .acl(cannedAccessControlList)
+                        .contentType(source.contentType())
+                        .contentEncoding(source.contentEncoding())
+                        .contentDisposition(source.contentDisposition())
+                        .contentLanguage(source.contentLanguage())
+                        .cacheControl(source.cacheControl())
+                        .metadata(source.metadata())
+                        .build())
+                .uploadId();
+        List<CompletableFuture<CompletedPart>> futures = new ArrayList<>(partCount);
+        try {
+            try {
+                Semaphore inFlightParts = new Semaphore(concurrency);
+                for (int partIndex = 0; partIndex < partCount; partIndex++) {
+                    int partNumber = partIndex + 1;
+                    long start = partIndex * partSize;
+                    long end = Math.min(start + partSize, contentLength) - 1;
+                    inFlightParts.acquire();
+                    if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                        break;
+                    }
+                    futures.add(CompletableFuture
+                            .supplyAsync(() -> transferPartWithRetry(destinationFilePath, partNumber,
+                                    () -> copyPart(sourceFilePath, destinationFilePath, uploadId, partNumber, start, end)),
+                                    s3TransferExecutor)
+                            .whenComplete((completedPart, throwable) -> inFlightParts.release()));
+                }
+            } finally {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+            }
+            List<CompletedPart> completedParts = futures.stream().map(CompletableFuture::join).toList();
+            String eTag = completeMultipartUpload(destinationFilePath, uploadId, completedParts);
+            // CompleteMultipartUpload does not return the modification time of the assembled file
+            return CopyObjectResult.builder().eTag(eTag).lastModified(Instant.now()).build();
+        } catch (Exception e) {
+            abortMultipartUpload(destinationFilePath, uploadId);
+            throw e;
+        }
+    }
+
+    // Grows the part size with the file size so that the number of parts stays bounded
+    private long calculatePartSize(long fileSize) {
+        S3ConfigProperties.Multipart multipart = s3ConfigProperties.getMultipart();
+        long minPartSize = multipart.getMinPartSize().toBytes();
+        long partSize = Math.max(minPartSize, (fileSize + multipart.getMaxPartCount() - 1) / multipart.getMaxPartCount());
+        // Round up to a whole megabyte
+        return (partSize + MEGABYTE - 1) / MEGABYTE * MEGABYTE;
+    }
+
+    // Transfers a single part, retrying it a limited number of times before giving up
+    private CompletedPart transferPartWithRetry(String filePath, int partNumber, Supplier<CompletedPart> partTransfer) {
+        S3ConfigProperties.Multipart multipart = s3ConfigProperties.getMultipart();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return partTransfer.get();
+            } catch (SdkException e) {
+                if (attempt >= multipart.getMaxPartAttempts()) {
+                    throw e;
+                }
+                logger.warn("Part {} of file {} failed on attempt {}, retrying: {}", partNumber, filePath, attempt, e.getMessage());
+                try {
+                    Thread.sleep(multipart.getRetryBackoff().toMillis() * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Uploads a single part of a multipart upload
+    private CompletedPart uploadPart(String filePath, String uploadId, int partNumber, RequestBody requestBody) {
+        UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .build(),
+                requestBody);
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    // Copies a byte range of the source file as a single part of a multipart upload
+    private CompletedPart copyPart(String sourceFilePath, String destinationFilePath, String uploadId, int partNumber, long start, long end) {
+        UploadPartCopyResponse response = s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                .sourceBucket(s3ConfigProperties.getBucketName())
+                .sourceKey(sourceFilePath)
+                .destinationBucket(s3ConfigProperties.getBucketName())
+                .destinationKey(destinationFilePath)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .copySourceRange("bytes=" + start + "-" + end)
+                .build());
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.copyPartResult().eTag())
+                .build();
+    }
+
+    // Completes a multipart upload from its uploaded parts and returns the ETag of the assembled file
+    private String completeMultipartUpload(String filePath, String uploadId, List<CompletedPart> completedParts) {
+        return s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(s3ConfigProperties.getBucketName())
+                        .key(filePath)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                        .build())
+                .eTag();
+    }
+
+    // Aborts a multipart upload so that its uploaded parts are not left behind in the bucket
+    private void abortMultipartUpload(String filePath, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(s3ConfigProperties.getBucketName())
+                    .key(filePath)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            logger.warn("Abort Error for multipart upload {} of file {}: {}", uploadId, filePath, e.getMessage());
+        }
+    }
+
+    // Reads a byte range of a file fully into memory
+    private byte[] readRange(String filePath, long start, long end) {
+        try (ResponseInputStream<GetObjectResponse> rangeStream = getFile(filePath, start, end)) {
+            return rangeStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Wraps the first bytes of a buffer as a request body without copying them
+    private static RequestBody fromBuffer(byte[] buffer, int length) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
 }
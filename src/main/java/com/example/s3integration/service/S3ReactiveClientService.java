@@ -0,0 +1,33 @@
+package com.example.s3integration.service;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+
+import java.nio.ByteBuffer;
+
+public interface S3ReactiveClientService {
+
+    /**
+     * Streams a file from the specified path in the S3 bucket.
+     * Chunks are read from the connection only as they are requested; cancelling the subscription aborts the GET.
+     *
+     * @param filePath the path of the file in the S3 bucket.
+     * @return the contents of the file as a stream of chunks.
+     */
+    Flux<ByteBuffer> getFile(String filePath);
+
+    /**
+     * Uploads a stream of chunks to the specified path in the S3 bucket.
+     * Chunks are requested from the publisher only as fast as they are sent to S3.
+     *
+     * @param filePath the path in the S3 bucket where the file will be stored.
+     * @param contentLength the exact number of bytes the publisher emits.
+     * @param contentType the content type stored with the object.
+     * @param content the contents of the file.
+     * @param cannedAccessControlList the access control list to apply to the file.
+     * @return the ETag of the uploaded object.
+     */
+    Mono<String> uploadFile(String filePath, long contentLength, String contentType, Publisher<ByteBuffer> content, ObjectCannedACL cannedAccessControlList);
+}
@@ -0,0 +1,87 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.config.properties.S3ConfigProperties;
+import com.example.s3integration.exception.custom.s3.S3ServiceException;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "aws.s3", name = "client-type", havingValue = "async")
+public class S3ReactiveClientServiceImpl implements S3ReactiveClientService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3ReactiveClientServiceImpl.class);
+
+    private final S3AsyncClient s3AsyncClient;
+    private final S3ConfigProperties s3ConfigProperties;
+
+    // Streams a file from S3, the request is sent on subscription and cancelled with it
+    @Override
+    public Flux<ByteBuffer> getFile(String filePath) {
+        return Mono.fromFuture(() -> s3AsyncClient.getObject(GetObjectRequest.builder()
+                                .bucket(s3ConfigProperties.getBucketName())
+                                .key(filePath)
+                                .build(),
+                        AsyncResponseTransformer.toPublisher()))
+                .flatMapMany(Flux::from)
+                .onErrorMap(throwable -> {
+                    logger.error("Reactive Download Error for file {} in bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), throwable.getMessage(), throwable);
+                    return new S3ServiceException("Download Error for file: " + filePath, throwable);
+                });
+    }
+
+    // Uploads a stream of chunks to S3, large bodies are sent as a multipart upload by the async client
+    @Override
+    public Mono<String> uploadFile(String filePath, long contentLength, String contentType, Publisher<ByteBuffer> content, ObjectCannedACL cannedAccessControlList) {
+        return Mono.fromFuture(() -> s3AsyncClient.putObject(PutObjectRequest.builder()
+                                .bucket(s3ConfigProperties.getBucketName())
+                                .key(filePath)
+                                .contentLength(contentLength)
+                                .contentType(contentType)
+                                .acl(cannedAccessControlList)
+                                .build(),
+                        requestBody(contentLength, contentType, content)))
+                .map(PutObjectResponse::eTag)
+                .onErrorMap(throwable -> {
+                    logger.error("Reactive Upload Error for file {} to bucket {}: {}", filePath, s3ConfigProperties.getBucketName(), throwable.getMessage(), throwable);
+                    return new S3ServiceException("Upload Error for file: " + filePath, throwable);
+                });
+    }
+
+    // Request body of a known length, so that the async client can decide between a single PUT and a multipart upload
+    private AsyncRequestBody requestBody(long contentLength, String contentType, Publisher<ByteBuffer> content) {
+        return new AsyncRequestBody() {
+            @Override
+            public Optional<Long> contentLength() {
+                return Optional.of(contentLength);
+            }
+
+            @Override
+            public String contentType() {
+                return contentType;
+            }
+
+            @Override
+            public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+                content.subscribe(subscriber);
+            }
+        };
+    }
+}
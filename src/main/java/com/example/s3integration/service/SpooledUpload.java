@@ -0,0 +1,15 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+
+import java.io.File;
+
+/**
+ * An upload whose content was written to a local file and is ready to be transferred to the storage.
+ *
+ * @param request the key, path, content type and content encoding of the file
+ * @param file the spooled content, compressed if the request has a content encoding
+ * @param contentHash the hex encoded SHA-256 digest of the original content, null without deduplication
+ */
+public record SpooledUpload(FileCreateRequest request, File file, String contentHash) {
+}
@@ -0,0 +1,69 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.model.entity.StoredObject;
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+public interface StoredObjectService {
+
+    /**
+     * Looks up the stored object with the given content and adds a reference to it.
+     * The caller must point a file row to it or give the reference back with {@link #release(Collection)}.
+     *
+     * @param contentHash the hex encoded SHA-256 digest of the content.
+     * @return the stored object with its reference count incremented, empty if the content is not stored yet.
+     */
+    Optional<StoredObject> acquire(String contentHash);
+
+    /**
+     * Registers a newly uploaded object as the stored object of its content, with one reference.
+     * If the same content was registered concurrently, a reference to that object is added instead;
+     * the caller can tell by the returned file path and should delete its own object.
+     *
+     * @param contentHash the hex encoded SHA-256 digest of the original content.
+     * @param request the create request holding the path, size, ETag and content encoding of the uploaded object.
+     * @return the stored object of the content.
+     */
+    StoredObject register(String contentHash, FileCreateRequest request);
+
+    /**
+     * Removes one reference per given content hash, forgetting stored objects that are no longer referenced.
+     *
+     * @param contentHashes the content hashes, repeated once per reference to remove.
+     * @return the paths of the objects that are no longer referenced and must be deleted from the bucket.
+     */
+    Set<String> release(Collection<String> contentHashes);
+
+    /**
+     * Saves file rows and removes references in a single transaction, e.g. when a copy stops sharing its content.
+     *
+     * @param fileStorages the file rows to save.
+     * @param releasedContentHashes the content hashes to remove one reference from each.
+     * @return the paths of the objects that are no longer referenced and must be deleted from the bucket.
+     */
+    Set<String> save(Collection<FileStorage> fileStorages, Collection<String> releasedContentHashes);
+
+    /**
+     * Deletes file rows and removes the references of those with a content hash in a single transaction.
+     *
+     * @param fileStorages the file rows to delete.
+     * @return the paths of the objects that are no longer referenced and must be deleted from the bucket.
+     */
+    Set<String> delete(Collection<FileStorage> fileStorages);
+
+    /**
+     * Forgets the stored objects at the given paths that were not acquired or registered since the cutoff, before
+     * their objects are deleted from the bucket regardless of their references, e.g. after a crash between upload and save.
+     * A stored object used since then may be about to get a file row and is kept.
+     *
+     * @param filePaths the paths of the objects to delete.
+     * @param cutoff the time after which a stored object counts as in use.
+     * @return the given paths that may be deleted from the bucket: those without a stored object and those forgotten.
+     */
+    Set<String> forgetUnused(Collection<String> filePaths, LocalDateTime cutoff);
+}
@@ -0,0 +1,141 @@
+package com.example.s3integration.service;
+
+import com.example.s3integration.exception.custom.storage.StorageServiceException;
+import com.example.s3integration.model.entity.FileStorage;
+import com.example.s3integration.model.entity.StoredObject;
+import com.example.s3integration.model.http.request.storage.FileCreateRequest;
+import com.example.s3integration.repository.FileStorageRepository;
+import com.example.s3integration.repository.StoredObjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class StoredObjectServiceImpl implements StoredObjectService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoredObjectServiceImpl.class);
+
+    private final StoredObjectRepository storedObjectRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public StoredObjectServiceImpl(StoredObjectRepository storedObjectRepository, FileStorageRepository fileStorageRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.storedObjectRepository = storedObjectRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Increments the reference count of the stored content while its row is locked
+    @Override
+    public Optional<StoredObject> acquire(String contentHash) {
+        return transactionTemplate.execute(status -> storedObjectRepository.findByContentHash(contentHash)
+                .map(storedObject -> {
+                    storedObject.setReferenceCount(storedObject.getReferenceCount() + 1);
+                    return storedObject;
+                }));
+    }
+
+    // Inserts the stored object, falling back to the one registered concurrently for the same content
+    @Override
+    public StoredObject register(String contentHash, FileCreateRequest request) {
+        StoredObject storedObject = new StoredObject();
+        storedObject.setContentHash(contentHash);
+        storedObject.setFilePath(request.getFilePath());
+        storedObject.setContentLength(request.getContentLength());
+        storedObject.setEtag(request.getEtag());
+        storedObject.setContentEncoding(request.getContentEncoding());
+        storedObject.setDecodedContentLength(request.getDecodedContentLength());
+        storedObject.setReferenceCount(1);
+        try {
+            return transactionTemplate.execute(status -> storedObjectRepository.saveAndFlush(storedObject));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Content {} was stored concurrently, referencing the existing object", contentHash);
+            return acquire(contentHash).orElseThrow(() -> e);
+        }
+    }
+
+    // Decrements the reference counts in one transaction
+    @Override
+    public Set<String> release(Collection<String> contentHashes) {
+        return transactionTemplate.execute(status -> releaseReferences(contentHashes));
+    }
+
+    // Saves the rows and decrements the reference counts in one transaction
+    @Override
+    public Set<String> save(Collection<FileStorage> fileStorages, Collection<String> releasedContentHashes) {
+        return transactionTemplate.execute(status -> {
+            fileStorageRepository.saveAll(fileStorages);
+            return releaseReferences(releasedContentHashes);
+        });
+    }
+
+    // Deletes the rows and decrements the reference counts of their content in one transaction
+    @Override
+    public Set<String> delete(Collection<FileStorage> fileStorages) {
+        return transactionTemplate.execute(status -> {
+            // References are only given back once, a row deleted concurrently rolls the whole batch back
+            if (fileStorageRepository.deleteByIdIn(fileStorages.stream().map(FileStorage::getId).toList()) != fileStorages.size()) {
+                throw new StorageServiceException("Files were deleted concurrently, their references are left unchanged");
+            }
+            return releaseReferences(fileStorages.stream().map(FileStorage::getContentHash).filter(Objects::nonNull).toList());
+        });
+    }
+
+    // Removes the stored objects not used since the cutoff while their rows are locked; acquire and register update updated_at
+    @Override
+    public Set<String> forgetUnused(Collection<String> filePaths, LocalDateTime cutoff) {
+        Set<String> deletablePaths = new HashSet<>(filePaths);
+        if (filePaths.isEmpty()) {
+            return deletablePaths;
+        }
+        return transactionTemplate.execute(status -> {
+            for (StoredObject storedObject : storedObjectRepository.findByFilePathInOrderByContentHash(filePaths)) {
+                LocalDateTime lastUsed = storedObject.getUpdatedAt() != null ? storedObject.getUpdatedAt() : storedObject.getCreatedAt();
+                if (lastUsed.isBefore(cutoff)) {
+                    storedObjectRepository.delete(storedObject);
+                } else {
+                    logger.debug("Keeping object {} of content {}, it was used after {}", storedObject.getFilePath(), storedObject.getContentHash(), cutoff);
+                    deletablePaths.remove(storedObject.getFilePath());
+                }
+            }
+            return deletablePaths;
+        });
+    }
+
+    // Locks the stored objects in hash order, so concurrent releases cannot deadlock, and removes those without references
+    private Set<String> releaseReferences(Collection<String> contentHashes) {
+        Map<String, Long> releasedReferences = contentHashes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+        Set<String> unreferencedPaths = new HashSet<>();
+        releasedReferences.forEach((contentHash, references) -> {
+            StoredObject storedObject = storedObjectRepository.findByContentHash(contentHash).orElse(null);
+            if (storedObject == null) {
+                logger.warn("No stored object found for content {}", contentHash);
+                return;
+            }
+            long referenceCount = storedObject.getReferenceCount() - references;
+            if (referenceCount > 0) {
+                storedObject.setReferenceCount(referenceCount);
+            } else {
+                storedObjectRepository.delete(storedObject);
+                unreferencedPaths.add(storedObject.getFilePath());
+            }
+        });
+        return unreferencedPaths;
+    }
+}
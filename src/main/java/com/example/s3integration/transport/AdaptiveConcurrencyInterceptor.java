@@ -0,0 +1,67 @@
+package com.example.s3integration.transport;
+
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+/**
+ * Runs every call of the blocking S3 client under a permit of the {@link AdaptiveConcurrencyLimiter}.
+ *
+ * The permit is held for the whole call including its retries, and every attempt answered with a throttling
+ * status lowers the limit. Calls that find no permit in time fail with an {@link SdkClientException} instead
+ * of piling up on the connection pool.
+ */
+public class AdaptiveConcurrencyInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<AdaptiveConcurrencyLimiter.Permit> PERMIT = new ExecutionAttribute<>("S3ConcurrencyPermit");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdaptiveConcurrencyInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.create("Interrupted while waiting for an S3 request permit", e);
+        }
+        if (permit == null) {
+            throw SdkClientException.create("No S3 request permit available within " + limiter.getAcquireTimeout().toMillis() + " ms");
+        }
+        executionAttributes.putAttribute(PERMIT, permit);
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        AdaptiveConcurrencyLimiter.Permit permit = executionAttributes.getAttribute(PERMIT);
+        int statusCode = context.httpResponse().statusCode();
+        if (permit != null && (statusCode == 503 || statusCode == 429)) {
+            limiter.onThrottled(permit);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        AdaptiveConcurrencyLimiter.Permit permit = executionAttributes.getAttribute(PERMIT);
+        if (permit != null) {
+            limiter.release(permit, true);
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        // Also called when no permit was acquired, in which case there is nothing to release
+        AdaptiveConcurrencyLimiter.Permit permit = executionAttributes.getAttribute(PERMIT);
+        if (permit != null) {
+            limiter.release(permit, false);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.s3integration.transport;
+
+import com.example.s3integration.config.properties.S3ConfigProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An additive-increase/multiplicative-decrease (AIMD) limit on the number of concurrent S3 requests.
+ *
+ * Every request that completes without being throttled raises the limit by {@code 1/limit}, so the limit grows
+ * by about one per round of successful requests. A throttled request ({@code 503 SlowDown}, {@code 429}) cuts the
+ * limit by the backoff ratio. Only requests started after the last cut can cut it again, so a burst of throttled
+ * responses to requests that were already in flight counts as a single congestion signal.
+ *
+ * A ReentrantLock is used instead of synchronized, so that waiting virtual threads do not pin their carrier.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final Duration acquireTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final LongAdder throttledRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private double limit;
+    private int inFlight;
+    private long generation;
+
+    public AdaptiveConcurrencyLimiter(S3ConfigProperties.ConcurrencyLimit concurrencyLimit) {
+        this.minLimit = concurrencyLimit.getMinLimit();
+        this.maxLimit = concurrencyLimit.getMaxLimit();
+        this.backoffRatio = concurrencyLimit.getBackoffRatio();
+        this.acquireTimeout = concurrencyLimit.getAcquireTimeout();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, concurrencyLimit.getInitialLimit()));
+    }
+
+    /**
+     * Waits until the number of requests in flight is below the current limit.
+     *
+     * @return the permit of the request, or null if none became available within the acquire timeout
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long remainingNanos = acquireTimeout.toNanos();
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    rejectedRequests.increment();
+                    return null;
+                }
+                remainingNanos = permitReleased.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+            return new Permit(generation);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that a request was throttled, which cuts the limit unless it was already cut after the request started.
+     *
+     * @param permit the permit of the throttled request
+     */
+    public void onThrottled(Permit permit) {
+        throttledRequests.increment();
+        lock.lock();
+        try {
+            permit.throttled = true;
+            if (permit.generation == generation) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                generation++;
+                logger.debug("S3 throttled a request, concurrency limit lowered to {}", (int) limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a finished request; a request that succeeded without being throttled raises the limit.
+     * Releasing a permit more than once has no effect.
+     *
+     * @param permit the permit of the finished request
+     * @param succeeded whether the request succeeded
+     */
+    public void release(Permit permit, boolean succeeded) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            if (succeeded && !permit.throttled) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public long getThrottledRequests() {
+        return throttledRequests.sum();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("s3.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent S3 requests")
+                .register(registry);
+        Gauge.builder("s3.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("S3 requests currently holding a permit")
+                .register(registry);
+        FunctionCounter.builder("s3.concurrency.throttled", this, AdaptiveConcurrencyLimiter::getThrottledRequests)
+                .description("S3 requests answered with a throttling response")
+                .register(registry);
+        FunctionCounter.builder("s3.concurrency.rejected", this, AdaptiveConcurrencyLimiter::getRejectedRequests)
+                .description("S3 requests that found no permit within the acquire timeout")
+                .register(registry);
+    }
+
+    /**
+     * The right of one request to run, remembering the limit generation it was issued in.
+     */
+    public static final class Permit {
+
+        private final long generation;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean throttled;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+    }
+}
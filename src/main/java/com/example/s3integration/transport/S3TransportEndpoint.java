@@ -0,0 +1,38 @@
+package com.example.s3integration.transport;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code /actuator/s3transport} with the connection pool, retry and throttling statistics
+ * of the S3 clients and the state of the adaptive concurrency limiter.
+ */
+@Component
+@Endpoint(id = "s3transport")
+@RequiredArgsConstructor
+public class S3TransportEndpoint {
+
+    private final S3TransportMetrics s3TransportMetrics;
+    private final ObjectProvider<AdaptiveConcurrencyLimiter> s3ConcurrencyLimiter;
+
+    @ReadOperation
+    public Map<String, Object> transport() {
+        Map<String, Object> transport = new LinkedHashMap<>();
+        transport.put("clients", s3TransportMetrics.snapshot());
+        s3ConcurrencyLimiter.ifAvailable(limiter -> {
+            Map<String, Object> concurrencyLimit = new LinkedHashMap<>();
+            concurrencyLimit.put("limit", limiter.getLimit());
+            concurrencyLimit.put("inFlight", limiter.getInFlight());
+            concurrencyLimit.put("throttledRequests", limiter.getThrottledRequests());
+            concurrencyLimit.put("rejectedRequests", limiter.getRejectedRequests());
+            transport.put("concurrencyLimit", concurrencyLimit);
+        });
+        return transport;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.s3integration.transport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the connection pool and retry statistics the AWS SDK reports for every S3 call and publishes them
+ * as Micrometer meters tagged with the client they belong to.
+ *
+ * Pool gauges ({@code s3.http.pool.*}) show the values reported by the most recent call, which is how the SDK
+ * exposes the pool state. A pending count above zero means requests are queueing for a connection.
+ * {@code s3.api.call} times every S3 call including its retries, tagged with the S3 operation.
+ */
+@Component
+public class S3TransportMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ClientStats> clients = new ConcurrentHashMap<>();
+
+    public S3TransportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates the metric publisher to register on an S3 client.
+     *
+     * @param client the name the meters of the client are tagged with
+     * @return a publisher recording the metrics of the client
+     */
+    public MetricPublisher publisherFor(String client) {
+        ClientStats stats = clients.computeIfAbsent(client, name -> new ClientStats(name, meterRegistry));
+        return new MetricPublisher() {
+            @Override
+            public void publish(MetricCollection metricCollection) {
+                stats.record(metricCollection);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Returns the current statistics of every client, keyed by client name.
+     *
+     * @return the pool, throttling and retry statistics
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        clients.forEach((name, stats) -> snapshot.put(name, stats.snapshot()));
+        return snapshot;
+    }
+
+    private static final class ClientStats {
+
+        private final AtomicLong maxConnections = new AtomicLong();
+        private final AtomicLong leasedConnections = new AtomicLong();
+        private final AtomicLong availableConnections = new AtomicLong();
+        private final AtomicLong pendingAcquires = new AtomicLong();
+        private final Counter apiCalls;
+        private final Counter retries;
+        private final Counter throttledAttempts;
+        private final Timer acquireDuration;
+        private final Meter.MeterProvider<Timer> callDurations;
+
+        private ClientStats(String client, MeterRegistry meterRegistry) {
+            Gauge.builder("s3.http.pool.max", maxConnections, AtomicLong::get).tag("client", client)
+                    .description("Maximum number of connections of the S3 HTTP client").register(meterRegistry);
+            Gauge.builder("s3.http.pool.leased", leasedConnections, AtomicLong::get).tag("client", client)
+                    .description("Connections of the S3 HTTP client in use").register(meterRegistry);
+            Gauge.builder("s3.http.pool.available", availableConnections, AtomicLong::get).tag("client", client)
+                    .description("Idle connections of the S3 HTTP client").register(meterRegistry);
+            Gauge.builder("s3.http.pool.pending", pendingAcquires, AtomicLong::get).tag("client", client)
+                    .description("Requests waiting for a connection of the S3 HTTP client").register(meterRegistry);
+            this.apiCalls = Counter.builder("s3.api.calls").tag("client", client)
+                    .description("S3 API calls").register(meterRegistry);
+            this.retries = Counter.builder("s3.api.retries").tag("client", client)
+                    .description("Retried attempts of S3 API calls").register(meterRegistry);
+            this.throttledAttempts = Counter.builder("s3.api.throttled").tag("client", client)
+                    .description("S3 attempts answered with 503 or 429").register(meterRegistry);
+            this.acquireDuration = Timer.builder("s3.http.pool.acquire").tag("client", client)
+                    .description("Time spent waiting for a connection of the S3 HTTP client").register(meterRegistry);
+            this.callDurations = Timer.builder("s3.api.call").tag("client", client)
+                    .description("Duration of S3 API calls including retries")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .withRegistry(meterRegistry);
+        }
+
+        // Walks the call, its attempts and their HTTP client metrics
+        private void record(MetricCollection apiCall) {
+            apiCalls.increment();
+            List<Duration> durations = apiCall.metricValues(CoreMetric.API_CALL_DURATION);
+            if (!durations.isEmpty()) {
+                List<String> operations = apiCall.metricValues(CoreMetric.OPERATION_NAME);
+                List<Boolean> successful = apiCall.metricValues(CoreMetric.API_CALL_SUCCESSFUL);
+                callDurations.withTags("operation", operations.isEmpty() ? "unknown" : operations.get(0),
+                        "outcome", !successful.isEmpty() && successful.get(0) ? "success" : "error").record(durations.get(0));
+            }
+            apiCall.metricValues(CoreMetric.RETRY_COUNT).forEach(retries::increment);
+            for (MetricCollection attempt : apiCall.children()) {
+                attempt.metricValues(HttpMetric.HTTP_STATUS_CODE).stream()
+                        .filter(statusCode -> statusCode == 503 || statusCode == 429)
+                        .forEach(statusCode -> throttledAttempts.increment());
+                for (MetricCollection httpClient : attempt.children()) {
+                    setLast(maxConnections, httpClient.metricValues(HttpMetric.MAX_CONCURRENCY));
+                    setLast(leasedConnections, httpClient.metricValues(HttpMetric.LEASED_CONCURRENCY));
+                    setLast(availableConnections, httpClient.metricValues(HttpMetric.AVAILABLE_CONCURRENCY));
+                    setLast(pendingAcquires, httpClient.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+                    httpClient.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION).forEach(acquireDuration::record);
+                }
+            }
+        }
+
+        private void setLast(AtomicLong target, List<Integer> values) {
+            if (!values.isEmpty()) {
+                target.set(values.get(values.size() - 1));
+            }
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("maxConnections", maxConnections.get());
+            snapshot.put("leasedConnections", leasedConnections.get());
+            snapshot.put("availableConnections", availableConnections.get());
+            snapshot.put("pendingAcquires", pendingAcquires.get());
+            snapshot.put("apiCalls", (long) apiCalls.count());
+            snapshot.put("retries", (long) retries.count());
+            snapshot.put("throttledAttempts", (long) throttledAttempts.count());
+            snapshot.put("maxAcquireMillis", acquireDuration.max(TimeUnit.MILLISECONDS));
+            return snapshot;
+        }
+    }
+}
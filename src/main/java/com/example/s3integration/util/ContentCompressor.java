@@ -0,0 +1,240 @@
+package com.example.s3integration.util;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decides which uploads are stored compressed and converts content between its stored and its original form.
+ *
+ * An upload is compressed if compression is enabled, it is not smaller than the minimum size and either its
+ * content type is a compressible one or its content type is a generic one and its first bytes look like text.
+ * Content starting with the signature of an already compressed format is never compressed again.
+ */
+@Component
+public class ContentCompressor {
+
+    // Signatures of formats that do not shrink any further: gzip, zip, zstd, bzip2, xz, 7z, rar, png, jpeg, gif
+    private static final List<byte[]> COMPRESSED_SIGNATURES = List.of(
+            new byte[]{0x1f, (byte) 0x8b},
+            new byte[]{0x50, 0x4b, 0x03, 0x04},
+            new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd},
+            new byte[]{0x42, 0x5a, 0x68},
+            new byte[]{(byte) 0xfd, 0x37, 0x7a, 0x58, 0x5a, 0x00},
+            new byte[]{0x37, 0x7a, (byte) 0xbc, (byte) 0xaf, 0x27, 0x1c},
+            new byte[]{0x52, 0x61, 0x72, 0x21},
+            new byte[]{(byte) 0x89, 0x50, 0x4e, 0x47},
+            new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff},
+            new byte[]{0x47, 0x49, 0x46, 0x38});
+
+    private final StorageConfigProperties.Compression compression;
+    private final List<MediaType> contentTypes;
+    private final List<MediaType> sniffedContentTypes;
+    private final int sniffSize;
+
+    public ContentCompressor(StorageConfigProperties storageConfigProperties) {
+        this.compression = storageConfigProperties.getCompression();
+        this.contentTypes = compression.getContentTypes().stream().map(MediaType::parseMediaType).toList();
+        this.sniffedContentTypes = compression.getSniffedContentTypes().stream().map(MediaType::parseMediaType).toList();
+        this.sniffSize = Math.toIntExact(compression.getSniffSize().toBytes());
+    }
+
+    /**
+     * Decides whether an upload is stored compressed, inspecting its first bytes.
+     *
+     * @param contentType the detected content type of the upload, may be null
+     * @param contentLength the size of the upload in bytes, or -1 if it is not known before it is read
+     * @param inputStream the content of the upload; it must support mark and is reset to where it was
+     * @return the content encoding to store the upload with, or null to store it as it is
+     * @throws IOException if the first bytes cannot be read
+     */
+    public String selectEncoding(String contentType, long contentLength, InputStream inputStream) throws IOException {
+        if (!compression.isEnabled() || (contentLength >= 0 && contentLength < compression.getMinSize().toBytes())) {
+            return null;
+        }
+        MediaType mediaType = parseContentType(contentType);
+        boolean compressible = contentTypes.stream().anyMatch(type -> type.includes(mediaType));
+        if (!compressible && sniffedContentTypes.stream().noneMatch(type -> type.includes(mediaType))) {
+            return null;
+        }
+        inputStream.mark(sniffSize);
+        byte[] head = inputStream.readNBytes(sniffSize);
+        inputStream.reset();
+        // A stream that ends within the inspected bytes is no longer of unknown size
+        if (head.length < sniffSize && head.length < compression.getMinSize().toBytes()) {
+            return null;
+        }
+        if (isCompressed(head) || (!compressible && !looksLikeText(head))) {
+            return null;
+        }
+        return getEncoding();
+    }
+
+    /**
+     * Wraps content in its stored form.
+     *
+     * @param inputStream the original content
+     * @param contentEncoding the content encoding selected for the upload, or null
+     * @return a stream of the compressed content, or the given stream without an encoding
+     */
+    public InputStream encode(InputStream inputStream, String contentEncoding) {
+        if (contentEncoding == null) {
+            return inputStream;
+        }
+        if (isGzip(contentEncoding)) {
+            return new GzipCompressingInputStream(inputStream, compression.getLevel());
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    /**
+     * Wraps stored content in its original form.
+     *
+     * @param inputStream the stored content
+     * @param contentEncoding the content encoding recorded for the file, or null
+     * @return a stream of the decompressed content, or the given stream without an encoding
+     * @throws IOException if the stored content does not start with a valid header of the encoding
+     */
+    public InputStream decode(InputStream inputStream, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return inputStream;
+        }
+        if (isGzip(contentEncoding)) {
+            return new GZIPInputStream(inputStream, 8192);
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    /**
+     * Converts a stream of stored chunks to its original form without blocking, for the reactive download.
+     *
+     * @param content the stored content
+     * @param contentEncoding the content encoding recorded for the file, or null
+     * @return the decompressed content, or the given content without an encoding
+     */
+    public Flux<ByteBuffer> decode(Flux<ByteBuffer> content, String contentEncoding) {
+        if (contentEncoding == null) {
+            return content;
+        }
+        if (isGzip(contentEncoding)) {
+            return Flux.using(GzipDecoder::new, decoder -> content
+                            .concatMapIterable(buffer -> {
+                                try {
+                                    return decoder.decode(buffer);
+                                } catch (IOException e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                            })
+                            .concatWith(Mono.<ByteBuffer>fromCallable(() -> {
+                                decoder.finish();
+                                return null;
+                            })),
+                    GzipDecoder::end);
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    /**
+     * Tells whether a client accepts a content encoding, following the quality values of its Accept-Encoding header.
+     *
+     * @param acceptEncoding the Accept-Encoding header of the request, may be null
+     * @param contentEncoding the content encoding of the stored file
+     * @return true if the stored content can be sent to the client as it is
+     */
+    public static boolean isAccepted(String acceptEncoding, String contentEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return false;
+        }
+        Boolean explicit = null;
+        boolean wildcard = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].trim();
+            boolean accepted = Arrays.stream(parameters).skip(1).map(String::trim)
+                    .filter(parameter -> parameter.startsWith("q="))
+                    .findFirst()
+                    .map(parameter -> parseQuality(parameter.substring(2)) > 0)
+                    .orElse(true);
+            if (coding.equalsIgnoreCase(contentEncoding) || (isGzip(contentEncoding) && coding.equalsIgnoreCase("x-gzip"))) {
+                explicit = accepted;
+            } else if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return explicit != null ? explicit : wildcard;
+    }
+
+    /**
+     * Derives the ETag of the compressed representation of a file from the ETag of its stored object, so that
+     * caches never answer a request for one representation with the other.
+     *
+     * @param etag the stored ETag, may be null
+     * @param contentEncoding the content encoding of the file
+     * @return the ETag with the encoding appended, or null without a stored ETag
+     */
+    public static String encodedEtag(String etag, String contentEncoding) {
+        if (etag == null) {
+            return null;
+        }
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-" + contentEncoding + "\"" : etag + "-" + contentEncoding;
+    }
+
+    // Token of the configured codec in the Content-Encoding header
+    private String getEncoding() {
+        return compression.getCodec().name().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        return contentEncoding.equalsIgnoreCase("gzip");
+    }
+
+    private static double parseQuality(String quality) {
+        try {
+            return Double.parseDouble(quality);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static MediaType parseContentType(String contentType) {
+        try {
+            return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static boolean isCompressed(byte[] head) {
+        return COMPRESSED_SIGNATURES.stream().anyMatch(signature -> head.length >= signature.length
+                && Arrays.equals(head, 0, signature.length, signature, 0, signature.length));
+    }
+
+    // Text has no NUL bytes and hardly any control characters other than whitespace and escape; UTF-8 sequences pass
+    private static boolean looksLikeText(byte[] head) {
+        if (head.length == 0) {
+            return false;
+        }
+        int controlCharacters = 0;
+        for (byte value : head) {
+            if (value == 0) {
+                return false;
+            }
+            if (value > 0 && value < 0x20 && value != '\t' && value != '\n' && value != '\r' && value != '\f' && value != 0x1b) {
+                controlCharacters++;
+            }
+        }
+        return controlCharacters * 100 <= head.length;
+    }
+}
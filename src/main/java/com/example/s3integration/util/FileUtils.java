@@ -1,21 +1,37 @@
 package com.example.s3integration.util;
 
+import com.example.s3integration.metrics.StorageMetrics;
+import com.example.s3integration.util.key.FileKeyGenerator;
+import com.example.s3integration.util.key.FilePathLayout;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class FileUtils {
 
     @Value("${spring-boot-s3-example.storage.main-folder}")
     private String MAIN_FOLDER;
 
+    private final FileKeyGenerator fileKeyGenerator;
+    private final FilePathLayout filePathLayout;
+    private final StorageMetrics storageMetrics;
+    private final ContentCompressor contentCompressor;
+
     /**
      * Converts a MultipartFile to a temporary File.
      *
@@ -24,12 +40,37 @@ public class FileUtils {
      * @throws IOException if any I/O error occurs during file creation or writing
      */
     public File convertMultiPartToFile(MultipartFile multipartFile) throws IOException {
+        return convertMultiPartToFile(multipartFile, null, null);
+    }
+
+    /**
+     * Converts a MultipartFile to a temporary File, updating a digest with the original content and
+     * compressing it while it is written.
+     *
+     * @param multipartFile the MultipartFile to be converted
+     * @param digest the digest to update with the original content, or null
+     * @param contentEncoding the content encoding the file is written with, or null to write the original content
+     * @return the converted File
+     * @throws IOException if any I/O error occurs during file creation or writing
+     */
+    public File convertMultiPartToFile(MultipartFile multipartFile, MessageDigest digest, String contentEncoding) throws IOException {
+        Timer.Sample sample = storageMetrics.start();
         // Extract the file extension from the original filename
         String extension = FilenameUtils.getExtension(multipartFile.getOriginalFilename());
         // Create a temporary file with a unique prefix and the correct file extension
-        File tempFile = File.createTempFile(UUID.randomUUID().toString(), "." + extension);
-        // Write directly to disk without loading the entire file into RAM
-        multipartFile.transferTo(tempFile);
+        File tempFile = File.createTempFile(fileKeyGenerator.generate(), "." + extension);
+        if (digest == null && contentEncoding == null) {
+            // Write directly to disk without loading the entire file into RAM
+            multipartFile.transferTo(tempFile);
+        } else {
+            // The content is hashed and compressed on its way to disk, so the temporary file is never read twice
+            InputStream contentStream = digest != null ? new DigestInputStream(multipartFile.getInputStream(), digest) : multipartFile.getInputStream();
+            try (InputStream inputStream = contentCompressor.encode(contentStream, contentEncoding)) {
+                Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        storageMetrics.recordDisk(sample, StorageMetrics.DISK_SPOOL);
+        storageMetrics.spooled(tempFile.length());
         // Return the temporary file
         return tempFile;
     }
@@ -43,55 +84,137 @@ public class FileUtils {
      * @throws IOException if any I/O error occurs during file creation or writing
      */
     public File convertInputStreamToFile(InputStream inputStream, String originalFilename) throws IOException {
+        return convertInputStreamToFile(inputStream, originalFilename, null, null);
+    }
+
+    /**
+     * Converts an InputStream to a temporary File, updating a digest with the original content and
+     * compressing it while it is written.
+     *
+     * @param inputStream the InputStream to be converted
+     * @param originalFilename the original filename to determine the file extension
+     * @param digest the digest to update with the original content, or null
+     * @param contentEncoding the content encoding the file is written with, or null to write the original content
+     * @return the converted temporary File
+     * @throws IOException if any I/O error occurs during file creation or writing
+     */
+    public File convertInputStreamToFile(InputStream inputStream, String originalFilename, MessageDigest digest, String contentEncoding) throws IOException {
+        Timer.Sample sample = storageMetrics.start();
         // Extract the file extension from the original filename
         String extension = FilenameUtils.getExtension(originalFilename);
         // Create a temporary file with a unique prefix and the correct file extension
-        File tempFile = File.createTempFile(UUID.randomUUID().toString(), "." + extension);
+        File tempFile = File.createTempFile(fileKeyGenerator.generate(), "." + extension);
         // Write InputStream directly to file, avoiding large byte arrays in memory
-        try (FileOutputStream fos = new FileOutputStream(tempFile); BufferedInputStream bis = new BufferedInputStream(inputStream)) {
+        try (FileOutputStream fos = new FileOutputStream(tempFile);
+             InputStream bis = contentCompressor.encode(digest != null ? new DigestInputStream(new BufferedInputStream(inputStream), digest) : new BufferedInputStream(inputStream), contentEncoding)) {
             byte[] buffer = new byte[8192]; // 8KB buffer size
             int bytesRead;
             while ((bytesRead = bis.read(buffer)) != -1) {
                 fos.write(buffer, 0, bytesRead);
             }
         }
+        // Includes the time spent waiting for the client to send the stream
+        storageMetrics.recordDisk(sample, StorageMetrics.DISK_SPOOL);
+        storageMetrics.spooled(tempFile.length());
         // Return the temporary file
         return tempFile;
     }
 
     /**
-     * Generates a random, unique file key using UUID.
+     * Creates a digest computing the content hash of deduplicated files.
+     *
+     * @return a new SHA-256 digest
+     */
+    public MessageDigest createContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Deletes a temporary file created by one of the convert methods.
+     *
+     * @param tempFile the temporary file to delete, may be null
+     * @return false if the file exists but could not be deleted, true otherwise
+     */
+    public boolean deleteTempFile(File tempFile) {
+        if (tempFile == null || !tempFile.exists()) {
+            return true;
+        }
+        Timer.Sample sample = storageMetrics.start();
+        long length = tempFile.length();
+        boolean deleted = tempFile.delete();
+        storageMetrics.recordDisk(sample, StorageMetrics.DISK_DELETE);
+        if (deleted) {
+            storageMetrics.unspooled(length);
+        }
+        return deleted;
+    }
+
+    /**
+     * Generates a unique file key with the configured key generator.
      *
-     * @return a unique random file key in UUID string format.
+     * @return a unique file key in UUID string format.
      */
     public String generateFileKey() {
-        return UUID.randomUUID().toString();
+        return fileKeyGenerator.generate();
     }
 
     /**
-     * Generates a structured file path based on the current date and a unique file name.
+     * Generates a structured file path based on the file key, the current date and a unique file name.
      *
+     * @param fileKey the key of the file, which determines its directory in a sharded layout.
      * @param originalFilename the original filename to extract the file extension.
-     * @return the generated file path in the format: "MAIN_FOLDER/yyyyMMdd/uniqueFileName.ext".
+     * @return the generated file path, e.g. "MAIN_FOLDER/shard/yyyyMMdd/uniqueFileName.ext" or "MAIN_FOLDER/yyyyMMdd/uniqueFileName.ext".
      */
-    public String generateFilePath(String originalFilename) {
-        // Use java.time for date formatting
-        String formattedDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    public String generateFilePath(String fileKey, String originalFilename) {
+        // The directory below the main folder is defined by the configured layout
+        String directory = filePathLayout.directoryOf(fileKey, LocalDate.now());
         // Construct the full path
-        return MAIN_FOLDER + "/" + formattedDate + "/" + generateRandomFileName(originalFilename);
+        return MAIN_FOLDER + "/" + directory + "/" + generateRandomFileName(originalFilename);
     }
 
     /**
-     * Generates a random, unique file name using UUID and the original file's extension.
+     * Generates a unique file name using the configured key generator and the original file's extension.
      *
      * @param originalFilename the original filename from which to extract the extension.
-     * @return a unique random file name with the original extension.
+     * @return a unique file name with the original extension.
      */
     public String generateRandomFileName(String originalFilename) {
         // Extract the file extension from the original filename
         String extension = FilenameUtils.getExtension(originalFilename);
-        // Generate a random UUID for the file name, and return it with the original extension
-        return UUID.randomUUID() + "." + extension;
+        // Generate a unique identifier for the file name, and return it with the original extension
+        return fileKeyGenerator.generate() + "." + extension;
+    }
+
+    /**
+     * Detects the content type of a file from its extension, falling back to the type declared by the client.
+     *
+     * @param originalFilename the original filename used to look up the media type.
+     * @param declaredContentType the content type declared by the client, may be null.
+     * @return the detected content type, or "application/octet-stream" if it cannot be determined.
+     */
+    public String detectContentType(String originalFilename, String declaredContentType) {
+        return MediaTypeFactory.getMediaType(originalFilename)
+                .map(MediaType::toString)
+                .orElse(declaredContentType != null ? declaredContentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    /**
+     * Normalizes a file name given by a client for storing it as metadata.
+     *
+     * @param originalFilename the file name given by the client, may be null.
+     * @return the file name without directories, limited to 255 characters, or null if none was given.
+     */
+    public String normalizeOriginalFileName(String originalFilename) {
+        if (originalFilename == null) {
+            return null;
+        }
+        String fileName = FilenameUtils.getName(originalFilename);
+        return fileName.length() > 255 ? fileName.substring(0, 255) : fileName;
     }
 
     /**
@@ -0,0 +1,104 @@
+package com.example.s3integration.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An InputStream that reads the gzip (RFC 1952) compressed form of another InputStream.
+ *
+ * The JDK only compresses to gzip through an OutputStream, which does not fit uploads that pull their content
+ * from a stream. This class deflates the source while it is read, so the compressed content is never buffered
+ * beyond a single deflate chunk. Closing the stream closes the source.
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    // Magic number, deflate method, no flags, no modification time, no extra flags, unknown operating system
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+
+    private final InputStream source;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] inputBuffer = new byte[8192];
+    private final byte[] outputBuffer = new byte[8192];
+    private int outputPosition;
+    private int outputLimit;
+    private boolean sourceFinished;
+    private boolean trailerWritten;
+
+    public GzipCompressingInputStream(InputStream source, int level) {
+        this.source = source;
+        // The raw deflate stream is framed by the gzip header and trailer written here
+        this.deflater = new Deflater(level, true);
+        System.arraycopy(HEADER, 0, outputBuffer, 0, HEADER.length);
+        this.outputLimit = HEADER.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (outputPosition == outputLimit && !fill()) {
+            return -1;
+        }
+        int bytesRead = Math.min(length, outputLimit - outputPosition);
+        System.arraycopy(outputBuffer, outputPosition, bytes, offset, bytesRead);
+        outputPosition += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Refills the output buffer with the next compressed bytes, returns false at the end of the trailer
+    private boolean fill() throws IOException {
+        outputPosition = 0;
+        outputLimit = 0;
+        while (!deflater.finished()) {
+            if (deflater.needsInput() && !sourceFinished) {
+                int bytesRead = source.read(inputBuffer);
+                if (bytesRead == -1) {
+                    sourceFinished = true;
+                    deflater.finish();
+                } else if (bytesRead > 0) {
+                    crc.update(inputBuffer, 0, bytesRead);
+                    deflater.setInput(inputBuffer, 0, bytesRead);
+                }
+            }
+            outputLimit = deflater.deflate(outputBuffer);
+            if (outputLimit > 0) {
+                return true;
+            }
+        }
+        if (trailerWritten) {
+            return false;
+        }
+        // CRC-32 and size of the uncompressed content modulo 2^32, both little-endian
+        writeInt((int) crc.getValue(), 0);
+        writeInt((int) deflater.getBytesRead(), 4);
+        outputLimit = TRAILER_SIZE;
+        trailerWritten = true;
+        return true;
+    }
+
+    private void writeInt(int value, int position) {
+        for (int index = 0; index < 4; index++) {
+            outputBuffer[position + index] = (byte) (value >>> (8 * index));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.s3integration.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip member chunk by chunk, for streams that must not block on their input.
+ *
+ * The header may be split across chunks and is skipped once complete; the trailer is checked against the
+ * CRC and size of the decompressed content in {@link #finish()}. An instance decodes a single stream, is not
+ * thread-safe and has to be {@linkplain #end() ended} to free its native memory.
+ */
+final class GzipDecoder {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int MIN_HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final int OUTPUT_SIZE = 32 * 1024;
+
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    // Header bytes received so far, null once the header is complete
+    private byte[] header = new byte[0];
+    private final byte[] trailer = new byte[TRAILER_SIZE];
+    private int trailerLength;
+
+    /**
+     * Decompresses the next chunk of the stream.
+     *
+     * @param input the next compressed bytes; they are consumed completely
+     * @return the decompressed bytes, possibly none
+     * @throws ZipException if the bytes are not a valid gzip stream
+     */
+    List<ByteBuffer> decode(ByteBuffer input) throws ZipException {
+        List<ByteBuffer> output = new ArrayList<>();
+        if (header != null) {
+            input = readHeader(input);
+            if (input == null) {
+                return output;
+            }
+        }
+        if (!inflater.finished()) {
+            inflater.setInput(input);
+            inflate(output);
+        }
+        if (inflater.finished()) {
+            readTrailer(input);
+        }
+        return output;
+    }
+
+    /**
+     * Verifies that the stream was complete.
+     *
+     * @throws ZipException if the stream ended early or its trailer does not match the decompressed content
+     */
+    void finish() throws ZipException {
+        if (header != null || !inflater.finished() || trailerLength < TRAILER_SIZE) {
+            throw new ZipException("Unexpected end of gzip stream");
+        }
+        if (readInt(trailer, 0) != crc.getValue()) {
+            throw new ZipException("Corrupt gzip trailer: CRC mismatch");
+        }
+        if (readInt(trailer, 4) != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt gzip trailer: size mismatch");
+        }
+    }
+
+    void end() {
+        inflater.end();
+    }
+
+    private void inflate(List<ByteBuffer> output) throws ZipException {
+        while (!inflater.finished()) {
+            byte[] bytes = new byte[OUTPUT_SIZE];
+            int length;
+            try {
+                length = inflater.inflate(bytes);
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid gzip data: " + e.getMessage());
+            }
+            if (length > 0) {
+                crc.update(bytes, 0, length);
+                output.add(ByteBuffer.wrap(bytes, 0, length));
+            } else if (inflater.needsInput()) {
+                return;
+            } else if (inflater.needsDictionary()) {
+                throw new ZipException("Invalid gzip data: preset dictionary");
+            }
+        }
+    }
+
+    // Collects header bytes, returns the bytes following a complete header or null while it is incomplete
+    private ByteBuffer readHeader(ByteBuffer input) throws ZipException {
+        int offset = header.length;
+        header = Arrays.copyOf(header, offset + input.remaining());
+        input.get(header, offset, input.remaining());
+        int headerLength = headerLength(header);
+        if (headerLength < 0) {
+            return null;
+        }
+        ByteBuffer remaining = ByteBuffer.wrap(header, headerLength, header.length - headerLength);
+        header = null;
+        return remaining;
+    }
+
+    private void readTrailer(ByteBuffer input) throws ZipException {
+        int length = Math.min(input.remaining(), TRAILER_SIZE - trailerLength);
+        input.get(trailer, trailerLength, length);
+        trailerLength += length;
+        if (input.hasRemaining()) {
+            throw new ZipException("Unexpected data after gzip trailer");
+        }
+    }
+
+    // Length of a complete header, -1 if more bytes are needed
+    private static int headerLength(byte[] header) throws ZipException {
+        if ((header.length > 0 && (header[0] & 0xff) != 0x1f) || (header.length > 1 && (header[1] & 0xff) != 0x8b)
+                || (header.length > 2 && header[2] != 8)) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (header.length < MIN_HEADER_SIZE) {
+            return -1;
+        }
+        int flags = header[3] & 0xff;
+        int position = MIN_HEADER_SIZE;
+        if ((flags & FEXTRA) != 0) {
+            if (header.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xff) | (header[position + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if (position >= 0 && (flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if (position >= 0 && (flags & FHCRC) != 0) {
+            position += 2;
+        }
+        return position >= 0 && position <= header.length ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] header, int position) {
+        for (int index = position; index < header.length; index++) {
+            if (header[index] == 0) {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xffL) | (bytes[offset + 1] & 0xffL) << 8 | (bytes[offset + 2] & 0xffL) << 16 | (bytes[offset + 3] & 0xffL) << 24;
+    }
+}
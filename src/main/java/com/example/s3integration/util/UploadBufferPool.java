@@ -0,0 +1,60 @@
+package com.example.s3integration.util;
+
+import com.example.s3integration.config.properties.StorageConfigProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of fixed-size byte buffers used to stream uploads to S3 part by part.
+ *
+ * Buffers are allocated lazily and reused, so the heap held by streaming uploads never exceeds
+ * {@code maxBuffers * partSize} regardless of how many uploads run at the same time.
+ */
+@Component
+public class UploadBufferPool {
+
+    private final int bufferSize;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    public UploadBufferPool(StorageConfigProperties storageConfigProperties) {
+        StorageConfigProperties.StreamUpload streamUpload = storageConfigProperties.getStreamUpload();
+        this.bufferSize = Math.toIntExact(streamUpload.getPartSize().toBytes());
+        this.acquireTimeoutMillis = streamUpload.getBufferAcquireTimeout().toMillis();
+        this.permits = new Semaphore(streamUpload.getMaxBuffers(), true);
+    }
+
+    /**
+     * Takes a buffer from the pool, waiting up to the configured timeout for one to be released.
+     *
+     * @return a buffer of {@link #getBufferSize()} bytes; its content is undefined
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws IllegalStateException if no buffer becomes available in time
+     */
+    public byte[] acquire() throws InterruptedException {
+        if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("No upload buffer available within " + acquireTimeoutMillis + " ms");
+        }
+        byte[] buffer = freeBuffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * Returns a buffer previously obtained from {@link #acquire()} to the pool.
+     *
+     * @param buffer the buffer to release
+     */
+    public void release(byte[] buffer) {
+        freeBuffers.offer(buffer);
+        permits.release();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
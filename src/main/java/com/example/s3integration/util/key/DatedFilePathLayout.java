@@ -0,0 +1,17 @@
+package com.example.s3integration.util.key;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Places all files uploaded on a day into one directory: {@code yyyyMMdd}.
+ */
+public class DatedFilePathLayout implements FilePathLayout {
+
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Override
+    public String directoryOf(String fileKey, LocalDate date) {
+        return date.format(DATE_FORMATTER);
+    }
+}
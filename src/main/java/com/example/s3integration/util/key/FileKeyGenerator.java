@@ -0,0 +1,14 @@
+package com.example.s3integration.util.key;
+
+/**
+ * Strategy generating the unique identifiers used as file keys and as the names of stored files.
+ */
+public interface FileKeyGenerator {
+
+    /**
+     * Generates a new unique identifier.
+     *
+     * @return the identifier in the canonical 36 character UUID format
+     */
+    String generate();
+}
@@ -0,0 +1,18 @@
+package com.example.s3integration.util.key;
+
+import java.time.LocalDate;
+
+/**
+ * Strategy placing stored files into directories below the main folder.
+ */
+public interface FilePathLayout {
+
+    /**
+     * Returns the directory of a new file, relative to the main folder and without a trailing slash.
+     *
+     * @param fileKey the key of the file; layouts derive from it only, so the same key always maps to the same directory
+     * @param date the upload date
+     * @return the relative directory, e.g. "20250312"
+     */
+    String directoryOf(String fileKey, LocalDate date);
+}
@@ -0,0 +1,15 @@
+package com.example.s3integration.util.key;
+
+import java.util.UUID;
+
+/**
+ * Generates random (version 4) UUIDs. Keys are spread evenly over the key space, so inserts hit random
+ * positions of the key and path indexes.
+ */
+public class RandomFileKeyGenerator implements FileKeyGenerator {
+
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.s3integration.util.key;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Spreads files over a fixed number of hashed shard directories in front of the date: {@code <shard>/yyyyMMdd}.
+ *
+ * S3 scales its request rate per key prefix, so a daily burst of uploads under a single date prefix is throttled
+ * with {@code 503 SlowDown}, while the shards are served by separate partitions. The shard is the CRC32C of the
+ * file key modulo the shard count, written as lower case hex of a fixed width, e.g. {@code 3f/20250312}. It only
+ * depends on the file key, which also spreads time-ordered keys evenly.
+ */
+public class ShardedFilePathLayout implements FilePathLayout {
+
+    private final int shardCount;
+    private final int shardWidth;
+
+    public ShardedFilePathLayout(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.shardCount = shardCount;
+        // At least two hex digits, more if the shard count needs them
+        this.shardWidth = Math.max(2, Integer.toHexString(shardCount - 1).length());
+    }
+
+    @Override
+    public String directoryOf(String fileKey, LocalDate date) {
+        return shardOf(fileKey) + "/" + date.format(DatedFilePathLayout.DATE_FORMATTER);
+    }
+
+    /**
+     * Returns the shard directory of a file key.
+     *
+     * @param fileKey the key of the file
+     * @return the shard, as fixed width lower case hex
+     */
+    public String shardOf(String fileKey) {
+        CRC32C crc = new CRC32C();
+        crc.update(fileKey.getBytes(StandardCharsets.UTF_8));
+        return formatShard((int) (crc.getValue() % shardCount));
+    }
+
+    /**
+     * Returns all shard directories, e.g. to list the stored files shard by shard.
+     *
+     * @return the shards in ascending order
+     */
+    public List<String> shards() {
+        return IntStream.range(0, shardCount).mapToObj(this::formatShard).toList();
+    }
+
+    private String formatShard(int shard) {
+        String hex = HexFormat.of().toHexDigits(shard);
+        return hex.substring(hex.length() - shardWidth);
+    }
+}
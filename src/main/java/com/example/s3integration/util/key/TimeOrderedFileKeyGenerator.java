@@ -0,0 +1,95 @@
+package com.example.s3integration.util.key;
+
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates time-ordered (version 7) UUIDs: a 48 bit millisecond timestamp and a 12 bit counter, followed by
+ * 62 random bits.
+ *
+ * Keys generated by one node are strictly increasing, also in their string form, so new rows are appended at
+ * the end of the key and path indexes instead of splitting pages at random positions. The timestamp and counter
+ * are advanced with a compare-and-set loop; when more than 4096 keys are generated within a millisecond, or the
+ * clock moves backwards, the timestamp runs ahead of the clock until it catches up.
+ *
+ * The random bits come from a CSPRNG, so keys cannot be guessed from other keys. Instead of one shared
+ * SecureRandom, a small set of DRBG instances is picked by thread id, so concurrent requests rarely wait on
+ * the same instance and short-lived virtual threads do not need to seed their own. Each instance generates
+ * random bytes in blocks, which keeps the cost of the CSPRNG per key low.
+ */
+public class TimeOrderedFileKeyGenerator implements FileKeyGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final long VARIANT_RFC_9562 = 0x8000_0000_0000_0000L;
+    private static final int RANDOM_BLOCK_SIZE = 1024;
+
+    // Timestamp in milliseconds shifted left by the counter bits, plus the counter
+    private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+    private final RandomBlock[] randomBlocks;
+    private final int randomMask;
+
+    public TimeOrderedFileKeyGenerator() {
+        // A power of two of at least twice the number of processors
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2;
+        this.randomBlocks = new RandomBlock[stripes];
+        this.randomMask = stripes - 1;
+        for (int i = 0; i < stripes; i++) {
+            randomBlocks[i] = new RandomBlock();
+        }
+    }
+
+    @Override
+    public String generate() {
+        long timestampAndCounter = nextTimestampAndCounter();
+        long mostSigBits = (timestampAndCounter >>> COUNTER_BITS) << 16 | VERSION_7 | (timestampAndCounter & ((1 << COUNTER_BITS) - 1));
+        long leastSigBits = randomBlocks[(int) Thread.currentThread().threadId() & randomMask].nextLong() & VARIANT_MASK | VARIANT_RFC_9562;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    // Returns the current millisecond with a zero counter, or the last value plus one if that is not lower
+    private long nextTimestampAndCounter() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        while (true) {
+            long last = lastTimestampAndCounter.get();
+            long next = Math.max(now, last + 1);
+            if (lastTimestampAndCounter.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Random bytes of one DRBG instance, refilled a block at a time
+    private static final class RandomBlock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SecureRandom random = createRandom();
+        private final ByteBuffer block = ByteBuffer.allocate(RANDOM_BLOCK_SIZE).position(RANDOM_BLOCK_SIZE);
+
+        private long nextLong() {
+            lock.lock();
+            try {
+                if (block.remaining() < Long.BYTES) {
+                    random.nextBytes(block.array());
+                    block.clear();
+                }
+                return block.getLong();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static SecureRandom createRandom() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    }
+}